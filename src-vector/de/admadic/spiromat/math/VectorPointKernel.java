@@ -0,0 +1,96 @@
+/**
+ *
+ * #license-begin#
+ * MIT License
+ *
+ * Copyright (c) 2005 - 2022 admaDIC GbR - http://www.admadic.de/
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * #license-end#
+ *
+ * $Id$ 
+ */
+package de.admadic.spiromat.math;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Provides a point kernel using the JDK Vector API. The cos/sin and 
+ * multiply-add pipeline of the figure calculation is carried out on 
+ * as many points at once as the preferred vector species has lanes.
+ * 
+ * This class must be compiled and run with 
+ * <code>--add-modules jdk.incubator.vector</code>. It is loaded by 
+ * {@link SpiroMath} via reflection, which falls back to the scalar 
+ * calculation if the class or the module is not available.
+ * 
+ * @author Rainer Schwarze
+ */
+public class VectorPointKernel implements IPointKernel {
+	private final static VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+	// the lane indexes 0..lanes-1:
+	private final double [] laneIndexes;
+
+	/**
+	 * Creates an instance of the kernel.
+	 */
+	public VectorPointKernel() {
+		super();
+		laneIndexes = new double[SPECIES.length()];
+		for (int i=0; i<laneIndexes.length; i++) {
+			laneIndexes[i] = i;
+		}
+	}
+
+	/**
+	 * @see de.admadic.spiromat.math.IPointKernel#calculateFigurePoints
+	 */
+	public void calculateFigurePoints(
+			double rBig, double rSmall, double lambda,
+			double phiStart, double phiStep, int count, 
+			double [] xOut, double [] yOut, int offset) {
+		final double rCenter = rBig - rSmall;
+		final double rPen = lambda*rSmall;
+		final double penFactor = 1.0 - rBig/rSmall;
+		final int lanes = SPECIES.length();
+		final DoubleVector lane = DoubleVector.fromArray(SPECIES, laneIndexes, 0);
+
+		int i = 0;
+		for (; i<=count - lanes; i+=lanes) {
+			DoubleVector phi = lane.add(i).mul(phiStep).add(phiStart);
+			DoubleVector phiPen = phi.mul(penFactor);
+			DoubleVector x = phi.lanewise(VectorOperators.COS).mul(rCenter).add(
+					phiPen.lanewise(VectorOperators.COS).mul(rPen));
+			DoubleVector y = phi.lanewise(VectorOperators.SIN).mul(rCenter).add(
+					phiPen.lanewise(VectorOperators.SIN).mul(rPen));
+			x.intoArray(xOut, offset + i);
+			y.intoArray(yOut, offset + i);
+		}
+		// the remaining points:
+		for (; i<count; i++) {
+			double phi = phiStart + i*phiStep;
+			double phiPen = phi*penFactor;
+			xOut[offset + i] = rCenter*Math.cos(phi) + rPen*Math.cos(phiPen);
+			yOut[offset + i] = rCenter*Math.sin(phi) + rPen*Math.sin(phiPen);
+		}
+	}
+}
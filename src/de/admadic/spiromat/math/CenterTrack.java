@@ -0,0 +1,152 @@
+/**
+ *
+ * #license-begin#
+ * MIT License
+ *
+ * Copyright (c) 2005 - 2022 admaDIC GbR - http://www.admadic.de/
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * #license-end#
+ *
+ * $Id$ 
+ */
+package de.admadic.spiromat.math;
+
+/**
+ * Caches the track of the inner gear's center and the direction of the 
+ * pen hole for the points of a figure. Both do not depend on the position 
+ * of the pen hole, so the points for any pen hole position are calculated 
+ * without trigonometric functions:
+ * <pre>
+ *   z = center + lambda*r*direction
+ * </pre>
+ * The points are located at phiMin, at the grid angles 
+ * <code>k*deltaPhi</code> strictly between phiMin and phiMax and at phiMax. 
+ * That is the layout of a FigureModel which is filled from phiMin to phiMax
+ * in one go.
+ * 
+ * @author Rainer Schwarze
+ */
+public class CenterTrack {
+	final private double rBig;
+	final private double rSmall;
+	final private double deltaPhi;
+	final private double phiMin;
+	final private double phiMax;
+	final private int count;
+
+	final private double [] centerX;
+	final private double [] centerY;
+	final private double [] directionX;
+	final private double [] directionY;
+
+	/**
+	 * Creates the track for the given parameters.
+	 * 
+	 * @param rBig		The radius of the outer gear.
+	 * @param rSmall	The radius of the inner gear.
+	 * @param deltaPhi	The angle step between the grid points.
+	 * @param phiMin	The angle of the first point.
+	 * @param phiMax	The angle of the last point.
+	 */
+	public CenterTrack(
+			double rBig, double rSmall, double deltaPhi, 
+			double phiMin, double phiMax) {
+		super();
+		this.rBig = rBig;
+		this.rSmall = rSmall;
+		this.deltaPhi = deltaPhi;
+		this.phiMin = phiMin;
+		this.phiMax = phiMax;
+
+		long kFrom = (long) Math.floor(phiMin / deltaPhi) + 1;
+		long kTo = (long) Math.ceil(phiMax / deltaPhi) - 1;
+		int n = (int) Math.max(kTo - kFrom + 1, 0);
+		count = n + 2;
+
+		centerX = new double[count];
+		centerY = new double[count];
+		directionX = new double[count];
+		directionY = new double[count];
+
+		calculateTrackPoint(0, phiMin);
+		// the grid points in bulk, with the vectorized kernel if available:
+		final double penFactor = 1.0 - rBig/rSmall;
+		SpiroMath.calculateCirclePoints(
+				rBig - rSmall, kFrom*deltaPhi, deltaPhi, n, centerX, centerY, 1);
+		SpiroMath.calculateCirclePoints(
+				1.0, kFrom*deltaPhi*penFactor, deltaPhi*penFactor, n, 
+				directionX, directionY, 1);
+		calculateTrackPoint(count - 1, phiMax);
+	}
+
+	/**
+	 * @param index
+	 * @param phi
+	 */
+	private void calculateTrackPoint(int index, double phi) {
+		final double rCenter = rBig - rSmall;
+		final double penFactor = 1.0 - rBig/rSmall;
+
+		centerX[index] = rCenter*Math.cos(phi);
+		centerY[index] = rCenter*Math.sin(phi);
+		directionX[index] = Math.cos(phi*penFactor);
+		directionY[index] = Math.sin(phi*penFactor);
+	}
+
+	/**
+	 * @param rBigArg
+	 * @param rSmallArg
+	 * @param deltaPhiArg
+	 * @param phiMinArg
+	 * @param phiMaxArg
+	 * @return	Returns true, if this track has been created for the given
+	 * 			parameters.
+	 */
+	public boolean isValidFor(
+			double rBigArg, double rSmallArg, double deltaPhiArg, 
+			double phiMinArg, double phiMaxArg) {
+		return rBig==rBigArg && rSmall==rSmallArg && deltaPhi==deltaPhiArg && 
+			phiMin==phiMinArg && phiMax==phiMaxArg;
+	}
+
+	/**
+	 * Calculates all points of the track for the given pen hole position.
+	 * 
+	 * @param lambda	The position of the pen hole.
+	 * @param xOut		The array receiving the x coordinates.
+	 * @param yOut		The array receiving the y coordinates.
+	 * @param offset	The index of the first point in the arrays.
+	 */
+	public void calculateFigurePoints(
+			double lambda, double [] xOut, double [] yOut, int offset) {
+		final double rPen = lambda*rSmall;
+		for (int i=0; i<count; i++) {
+			xOut[offset + i] = centerX[i] + rPen*directionX[i];
+			yOut[offset + i] = centerY[i] + rPen*directionY[i];
+		}
+	}
+
+	/**
+	 * @return the number of points of the track.
+	 */
+	public int getCount() {
+		return count;
+	}
+}
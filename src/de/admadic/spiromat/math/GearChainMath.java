@@ -0,0 +1,230 @@
+/**
+ *
+ * #license-begin#
+ * MIT License
+ *
+ * Copyright (c) 2005 - 2022 admaDIC GbR - http://www.admadic.de/
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * #license-end#
+ *
+ * $Id$ 
+ */
+package de.admadic.spiromat.math;
+
+/**
+ * Provides calculations for chains of gears: the first gear rolls in (or 
+ * around) a fixed ring, the second gear rolls in (or around) the first 
+ * gear and so on. The pen hole is located in the last gear.
+ * 
+ * The curve is represented as a sum of uniformly rotating phasors:
+ * <pre>
+ *   z(phi) = sum_k a_k * e^(i*f_k*phi)
+ * </pre>
+ * There is one phasor for the arm from the center of each gear to the 
+ * center of the next one and one for the pen hole. The frequencies f_k 
+ * are rational for integer radii. Gear k moves around the center of its
+ * parent gear while the parent turns, so that its arm turns by one round 
+ * relative to the parent per round of the driving angle. For one gear in 
+ * the ring this results in the same curve as {@link SpiroMath}.
+ * 
+ * Sequences of points with a fixed step are calculated by multiplying 
+ * every phasor with its precomputed rotation, so a point costs O(N) 
+ * multiply-adds instead of 2N trigonometric functions.
+ * 
+ * @author Rainer Schwarze
+ */
+public class GearChainMath {
+	// the phasors:
+	final private double [] amplitude;
+	final private long [] frequencyNum;
+	final private long [] frequencyDen;
+	final private double [] frequency;
+
+	// results:
+	private double figureX;
+	private double figureY;
+
+	/**
+	 * Creates an instance for the given chain of gears.
+	 * 
+	 * @param ringRadius	The radius of the fixed ring.
+	 * @param gearRadii		The radii of the gears, starting with the gear 
+	 * 						rolling at the ring.
+	 * @param outside		For every gear true, if it rolls around the 
+	 * 						outside of its parent (epitrochoid), false if it 
+	 * 						rolls inside (hypotrochoid).
+	 * @param lambda		The position of the pen hole in the last gear.
+	 */
+	public GearChainMath(int ringRadius, int [] gearRadii, boolean [] outside, double lambda) {
+		super();
+		if (gearRadii.length==0 || gearRadii.length!=outside.length) {
+			throw new IllegalArgumentException("need one outside flag per gear and at least one gear"); //$NON-NLS-1$
+		}
+		int n = gearRadii.length;
+		amplitude = new double[n + 1];
+		frequencyNum = new long[n + 1];
+		frequencyDen = new long[n + 1];
+		frequency = new double[n + 1];
+
+		// the body rotation of the parent (the ring is fixed):
+		long bodyNum = 0;
+		long bodyDen = 1;
+		int parentRadius = ringRadius;
+		for (int k=0; k<n; k++) {
+			int r = gearRadii[k];
+			// the arm turns one round per round relative to the parent:
+			long armNum = bodyNum + bodyDen;
+			long armDen = bodyDen;
+			// rolling without slip turns the gear by parent/r relative
+			// to its arm (against the arm when rolling inside):
+			long sign = outside[k] ? 1 : -1;
+			bodyNum = armNum*r + sign*parentRadius*armDen;
+			bodyDen = armDen*r;
+			long g = Util.gcd(bodyNum, bodyDen);
+			bodyNum /= g;
+			bodyDen /= g;
+
+			amplitude[k] = outside[k] ? parentRadius + r : parentRadius - r;
+			frequencyNum[k] = armNum;
+			frequencyDen[k] = armDen;
+			parentRadius = r;
+		}
+		amplitude[n] = lambda*parentRadius;
+		frequencyNum[n] = bodyNum;
+		frequencyDen[n] = bodyDen;
+		for (int k=0; k<=n; k++) {
+			frequency[k] = frequencyNum[k] / (double)frequencyDen[k];
+		}
+	}
+
+	/**
+	 * @return	Returns the number of rounds of the driving angle after 
+	 * 			which the curve closes.
+	 */
+	public long calculateRounds() {
+		return Util.calculateRounds(frequencyNum, frequencyDen);
+	}
+
+	/**
+	 * Performs calculations for the given angle.
+	 * 
+	 * @param phi
+	 */
+	public void calculate(double phi) {
+		double x = 0.0;
+		double y = 0.0;
+		for (int k=0; k<amplitude.length; k++) {
+			x += amplitude[k]*Math.cos(frequency[k]*phi);
+			y += amplitude[k]*Math.sin(frequency[k]*phi);
+		}
+		figureX = x;
+		figureY = y;
+	}
+
+	/**
+	 * Calculates a sequence of figure points for the angles 
+	 * <code>phiStart + i*phiStep</code> with <code>i = 0..count-1</code>
+	 * by rotating the phasors. Every 
+	 * {@link SpiroMath#ROTATOR_RESEED_INTERVAL} points the phasors are 
+	 * re-seeded with exact values.
+	 * 
+	 * @param phiStart	The angle of the first point.
+	 * @param phiStep	The angle increment from point to point.
+	 * @param count		The number of points to calculate.
+	 * @param xOut		The array receiving the x coordinates.
+	 * @param yOut		The array receiving the y coordinates.
+	 * @param offset	The index of the first point in the arrays.
+	 */
+	public void calculateFigurePoints(
+			double phiStart, double phiStep, int count, 
+			double [] xOut, double [] yOut, int offset) {
+		final int n = amplitude.length;
+		final double [] cosStep = new double[n];
+		final double [] sinStep = new double[n];
+		final double [] re = new double[n];
+		final double [] im = new double[n];
+		for (int k=0; k<n; k++) {
+			cosStep[k] = Math.cos(frequency[k]*phiStep);
+			sinStep[k] = Math.sin(frequency[k]*phiStep);
+		}
+
+		double tmp;
+		for (int i=0; i<count; i++) {
+			double x = 0.0;
+			double y = 0.0;
+			if (i % SpiroMath.ROTATOR_RESEED_INTERVAL == 0) {
+				double phi = phiStart + i*phiStep;
+				for (int k=0; k<n; k++) {
+					re[k] = amplitude[k]*Math.cos(frequency[k]*phi);
+					im[k] = amplitude[k]*Math.sin(frequency[k]*phi);
+					x += re[k];
+					y += im[k];
+				}
+			} else {
+				for (int k=0; k<n; k++) {
+					tmp = re[k]*cosStep[k] - im[k]*sinStep[k];
+					im[k] = re[k]*sinStep[k] + im[k]*cosStep[k];
+					re[k] = tmp;
+					x += re[k];
+					y += im[k];
+				}
+			}
+			xOut[offset + i] = x;
+			yOut[offset + i] = y;
+		}
+	}
+
+	/**
+	 * @return the number of phasors (number of gears + 1).
+	 */
+	public int getPhasorCount() {
+		return amplitude.length;
+	}
+
+	/**
+	 * @param k
+	 * @return the frequency of phasor k in rounds per round.
+	 */
+	public double getFrequency(int k) {
+		return frequency[k];
+	}
+
+	/**
+	 * @param k
+	 * @return the amplitude (length) of phasor k.
+	 */
+	public double getAmplitude(int k) {
+		return amplitude[k];
+	}
+
+	/**
+	 * @return the figureX
+	 */
+	public double getFigureX() {
+		return figureX;
+	}
+
+	/**
+	 * @return the figureY
+	 */
+	public double getFigureY() {
+		return figureY;
+	}
+}
@@ -0,0 +1,59 @@
+/**
+ *
+ * #license-begin#
+ * MIT License
+ *
+ * Copyright (c) 2005 - 2022 admaDIC GbR - http://www.admadic.de/
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * #license-end#
+ *
+ * $Id$ 
+ */
+package de.admadic.spiromat.math;
+
+/**
+ * Provides an interface for kernels which calculate whole blocks of figure
+ * points at once. The purpose of working through this interface is to 
+ * decouple from implementations which depend on optional JDK modules 
+ * (like the vectorized kernel).
+ * 
+ * @author Rainer Schwarze
+ */
+public interface IPointKernel {
+	/**
+	 * Calculates the figure points for the angles 
+	 * <code>phiStart + i*phiStep</code> with <code>i = 0..count-1</code>.
+	 * 
+	 * @param rBig		The radius of the outer gear.
+	 * @param rSmall	The radius of the inner gear.
+	 * @param lambda	The position of the pen hole.
+	 * @param phiStart	The angle of the first point.
+	 * @param phiStep	The angle increment from point to point.
+	 * @param count		The number of points to calculate.
+	 * @param xOut		The array receiving the x coordinates.
+	 * @param yOut		The array receiving the y coordinates.
+	 * @param offset	The index of the first point in the arrays.
+	 * @see SpiroMath#calculateFigurePoints
+	 */
+	public abstract void calculateFigurePoints(
+			double rBig, double rSmall, double lambda,
+			double phiStart, double phiStep, int count, 
+			double [] xOut, double [] yOut, int offset);
+}
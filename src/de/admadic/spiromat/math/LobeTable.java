@@ -0,0 +1,172 @@
+/**
+ *
+ * #license-begin#
+ * MIT License
+ *
+ * Copyright (c) 2005 - 2022 admaDIC GbR - http://www.admadic.de/
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * #license-end#
+ *
+ * $Id$ 
+ */
+package de.admadic.spiromat.math;
+
+/**
+ * Provides the points of a figure by exploiting its rotational symmetry.
+ * 
+ * A figure with the integer radii R and r repeats itself after the gear 
+ * center has travelled the angle T = 2*pi*r/R, just rotated by T:
+ * <pre>
+ *   z(phi + T) = z(phi) * e^(i*T)
+ * </pre>
+ * The full figure consists of R/gcd(R,r) of these lobes. This class 
+ * calculates the points of one lobe once and produces the points of all 
+ * other lobes by rotating them with a precomputed rotation.
+ * 
+ * The points are located on a grid of angles <code>k*deltaPhi</code>. 
+ * The step deltaPhi is chosen, so that one lobe covers an integer number 
+ * of steps. 
+ * 
+ * @author Rainer Schwarze
+ */
+public class LobeTable {
+	final private int pointsPerLobe;
+	final private int lobeCount;
+	final private double deltaPhi;
+
+	// the points of the lobe for the angles j*deltaPhi, j=0..pointsPerLobe-1
+	final private double [] lobeX;
+	final private double [] lobeY;
+	// the rotation for lobe q:
+	final private double [] rotationCos;
+	final private double [] rotationSin;
+
+	/**
+	 * Creates the table for the given parameters.
+	 * 
+	 * @param rBig		The radius of the outer gear (must be integer).
+	 * @param rSmall	The radius of the inner gear (must be integer).
+	 * @param lambda	The position of the pen hole.
+	 * @param maxStep	The maximum angle step between two points.
+	 */
+	public LobeTable(int rBig, int rSmall, double lambda, double maxStep) {
+		super();
+		double lobeSpan = Math.PI * 2 * rSmall / rBig;
+		pointsPerLobe = calculatePointsPerLobe(rBig, rSmall, maxStep);
+		lobeCount = Util.lcm(rBig, rSmall) / rSmall;
+		deltaPhi = lobeSpan / pointsPerLobe;
+
+		lobeX = new double[pointsPerLobe];
+		lobeY = new double[pointsPerLobe];
+		// the exact values, with the vectorized kernel if it is available:
+		SpiroMath spiroMath = new SpiroMath(rBig, rSmall, lambda);
+		spiroMath.setGenerationMode(SpiroMath.GenerationMode.VECTOR);
+		spiroMath.calculateFigurePoints(0.0, deltaPhi, pointsPerLobe, lobeX, lobeY, 0);
+
+		rotationCos = new double[lobeCount];
+		rotationSin = new double[lobeCount];
+		for (int q=0; q<lobeCount; q++) {
+			rotationCos[q] = Math.cos(q * lobeSpan);
+			rotationSin[q] = Math.sin(q * lobeSpan);
+		}
+	}
+
+	/**
+	 * @param rBig
+	 * @param rSmall
+	 * @param maxStep
+	 * @return	Returns the number of points per lobe for the given 
+	 * 			parameters.
+	 */
+	private static int calculatePointsPerLobe(int rBig, int rSmall, double maxStep) {
+		return (int) Math.ceil(Math.PI * 2 * rSmall / rBig / maxStep);
+	}
+
+	/**
+	 * @param rBig
+	 * @param rSmall
+	 * @param maxStep
+	 * @return	Returns the angle step a LobeTable would use for the given 
+	 * 			parameters. This does not create the table.
+	 */
+	public static double calculateDeltaPhi(int rBig, int rSmall, double maxStep) {
+		return Math.PI * 2 * rSmall / rBig / calculatePointsPerLobe(rBig, rSmall, maxStep);
+	}
+
+	/**
+	 * @param rBig
+	 * @param rSmall
+	 * @return	Returns true, if a LobeTable can be created for the given radii.
+	 */
+	public static boolean isApplicable(double rBig, double rSmall) {
+		return rBig==Math.rint(rBig) && rSmall==Math.rint(rSmall) && 
+			rSmall>0 && rBig>rSmall;
+	}
+
+	/**
+	 * Calculates the points for the grid indexes 
+	 * <code>kStart + i*kStep</code> with <code>i = 0..count-1</code>. 
+	 * The point for the grid index k is located at the angle 
+	 * <code>k*deltaPhi</code>.
+	 * 
+	 * @param kStart	The grid index of the first point.
+	 * @param kStep		The grid index increment (usually 1 or -1).
+	 * @param count		The number of points to calculate.
+	 * @param xOut		The array receiving the x coordinates.
+	 * @param yOut		The array receiving the y coordinates.
+	 * @param offset	The index of the first point in the arrays.
+	 */
+	public void calculateGridPoints(
+			long kStart, int kStep, int count, 
+			double [] xOut, double [] yOut, int offset) {
+		long k = kStart;
+		for (int i=0; i<count; i++) {
+			long q = Math.floorDiv(k, pointsPerLobe);
+			int j = (int) (k - q*pointsPerLobe);
+			int qm = Math.floorMod(q, lobeCount);
+			double c = rotationCos[qm];
+			double s = rotationSin[qm];
+			xOut[offset + i] = c*lobeX[j] - s*lobeY[j];
+			yOut[offset + i] = s*lobeX[j] + c*lobeY[j];
+			k += kStep;
+		}
+	}
+
+	/**
+	 * @return the angle between two grid points.
+	 */
+	public double getDeltaPhi() {
+		return deltaPhi;
+	}
+
+	/**
+	 * @return the number of points in one lobe.
+	 */
+	public int getPointsPerLobe() {
+		return pointsPerLobe;
+	}
+
+	/**
+	 * @return the number of lobes of the full figure.
+	 */
+	public int getLobeCount() {
+		return lobeCount;
+	}
+}
@@ -34,6 +34,36 @@ package de.admadic.spiromat.math;
  * @author Rainer Schwarze
  */
 public class SpiroMath {
+	/**
+	 * Provides the modes available for calculating sequences of points
+	 * with {@link SpiroMath#calculateFigurePoints}.
+	 */
+	public enum GenerationMode {
+		/** every point is calculated with the trigonometric functions */
+		EXACT,
+		/** 
+		 * the points are calculated by rotating the gear center and the 
+		 * pen hole vector by a fixed angle per step. 
+		 */
+		ROTATOR,
+		/**
+		 * the points are calculated in blocks with the vectorized kernel,
+		 * if it is available. Otherwise the mode behaves like EXACT.
+		 * (See {@link SpiroMath#isVectorKernelAvailable()})
+		 */
+		VECTOR
+	}
+
+	private static final String VECTOR_KERNEL_PROPNAME = "de.admadic.spiromat.math.vectorKernelClass"; //$NON-NLS-1$
+	private static final String VECTOR_KERNEL_CLASSNAME = "de.admadic.spiromat.math.VectorPointKernel"; //$NON-NLS-1$
+
+	/** 
+	 * number of points after which the rotators are re-seeded from exact 
+	 * values. This keeps the accumulated rounding error bounded 
+	 * independently from the number of rounds.
+	 */
+	public final static int ROTATOR_RESEED_INTERVAL = 256;
+
 	// parameters: 
 	final private double rBig;		// radius outer gear
 	final private double rSmall;	// radius inner gear (with pen hole)
@@ -45,6 +75,10 @@ public class SpiroMath {
 	private double smallGearDirection;	// direction of inner gear
 	private double figureX;			// point for spiromat figure according...
 	private double figureY;			// ...to given angle of inner gear's center.
+	private double figureDX;		// derivative of the figure point...
+	private double figureDY;		// ...with respect to the angle.
+
+	private GenerationMode generationMode = GenerationMode.EXACT;
 
 	/**
 	 * Creates an instance of SpiroMath with the given parameters.
@@ -60,6 +94,18 @@ public class SpiroMath {
 		this.lambda = lambda;
 	}
 
+	/**
+	 * Creates an instance of SpiroMath with the parameters and the 
+	 * generation mode of the given instance. This is used to calculate 
+	 * points in several threads at once.
+	 * 
+	 * @param other	The SpiroMath instance to copy.
+	 */
+	public SpiroMath(SpiroMath other) {
+		this(other.rBig, other.rSmall, other.lambda);
+		this.generationMode = other.generationMode;
+	}
+
 	/**
 	 * Performs calculations for the given angle.
 	 * 
@@ -85,6 +131,271 @@ public class SpiroMath {
 		figureY = y;
 	}
 
+	/**
+	 * Calculates a sequence of figure points in one call. The points are
+	 * calculated for the angles <code>phiStart + i*phiStep</code> with 
+	 * <code>i = 0..count-1</code> and are stored into the given arrays 
+	 * starting at <code>offset</code>. A negative phiStep walks the curve
+	 * backwards.
+	 * Note: this method does not update the result fields which are 
+	 * returned by the getters.
+	 * 
+	 * @param phiStart	The angle of the first point.
+	 * @param phiStep	The angle increment from point to point.
+	 * @param count		The number of points to calculate.
+	 * @param xOut		The array receiving the x coordinates.
+	 * @param yOut		The array receiving the y coordinates.
+	 * @param offset	The index of the first point in the arrays.
+	 */
+	public void calculateFigurePoints(
+			double phiStart, double phiStep, int count, 
+			double [] xOut, double [] yOut, int offset) {
+		if (generationMode==GenerationMode.ROTATOR) {
+			calculateFigurePointsRotator(
+					phiStart, phiStep, count, xOut, yOut, offset);
+			return;
+		}
+		if (generationMode==GenerationMode.VECTOR) {
+			IPointKernel kernel = getVectorKernel();
+			if (kernel!=null) {
+				kernel.calculateFigurePoints(
+						rBig, rSmall, lambda, 
+						phiStart, phiStep, count, xOut, yOut, offset);
+				return;
+			}
+			// no vector support - fall through to the exact calculation
+		}
+
+		final double rCenter = rBig - rSmall;
+		final double rPen = lambda*rSmall;
+		final double penFactor = 1.0 - rBig/rSmall;	// phi + phi2 == phi*penFactor
+
+		for (int i=0; i<count; i++) {
+			double phi = phiStart + i*phiStep;
+			double phiPen = phi*penFactor;
+			xOut[offset + i] = rCenter*Math.cos(phi) + rPen*Math.cos(phiPen);
+			yOut[offset + i] = rCenter*Math.sin(phi) + rPen*Math.sin(phiPen);
+		}
+	}
+
+	/**
+	 * Calculates a sequence of figure points like 
+	 * {@link #calculateFigurePoints} but without trigonometric functions 
+	 * per point: the gear center and the pen hole vector are complex numbers
+	 * which are multiplied by a precomputed rotation for every step.
+	 * Every {@link #ROTATOR_RESEED_INTERVAL} points the rotators are 
+	 * re-seeded with exact values.
+	 */
+	private void calculateFigurePointsRotator(
+			double phiStart, double phiStep, int count, 
+			double [] xOut, double [] yOut, int offset) {
+		final double rCenter = rBig - rSmall;
+		final double rPen = lambda*rSmall;
+		final double penFactor = 1.0 - rBig/rSmall;
+
+		// the rotations per step:
+		final double cosStep = Math.cos(phiStep);
+		final double sinStep = Math.sin(phiStep);
+		final double cosPenStep = Math.cos(phiStep*penFactor);
+		final double sinPenStep = Math.sin(phiStep*penFactor);
+
+		double xc = 0, yc = 0;	// unit vector to the gear center
+		double xp = 0, yp = 0;	// unit vector from gear center to pen hole
+		double tmp;
+		for (int i=0; i<count; i++) {
+			if (i % ROTATOR_RESEED_INTERVAL == 0) {
+				double phi = phiStart + i*phiStep;
+				double phiPen = phi*penFactor;
+				xc = Math.cos(phi);
+				yc = Math.sin(phi);
+				xp = Math.cos(phiPen);
+				yp = Math.sin(phiPen);
+			} else {
+				tmp = xc*cosStep - yc*sinStep;
+				yc = xc*sinStep + yc*cosStep;
+				xc = tmp;
+				tmp = xp*cosPenStep - yp*sinPenStep;
+				yp = xp*sinPenStep + yp*cosPenStep;
+				xp = tmp;
+			}
+			xOut[offset + i] = rCenter*xc + rPen*xp;
+			yOut[offset + i] = rCenter*yc + rPen*yp;
+		}
+	}
+
+	/**
+	 * Calculates the angle step which keeps the chord from the point at phi
+	 * to the next point within the given distance from the curve. The 
+	 * estimation is based on the local curvature, which is derived from
+	 * the analytic first and second derivatives of the curve:
+	 * the deviation of a chord with the arc length s is about 
+	 * curvature*s^2/8. Because the curvature may change quickly near cusps,
+	 * the estimation is repeated half a step ahead and behind and the 
+	 * smallest step is used. (So the result is valid for both directions.)
+	 * 
+	 * @param phi		The angle of the current point.
+	 * @param tolerance	The allowed deviation of the chord in model pixels.
+	 * @param minStep	The lower limit of the step.
+	 * @param maxStep	The upper limit of the step.
+	 * @return	Returns the (positive) angle step.
+	 */
+	public double calculateAdaptiveStep(
+			double phi, double tolerance, double minStep, double maxStep) {
+		double step = Math.min(estimateStep(phi, tolerance), maxStep);
+		step = Math.min(step, estimateStep(phi + step/2, tolerance));
+		step = Math.min(step, estimateStep(phi - step/2, tolerance));
+		return Math.max(step, minStep);
+	}
+
+	/**
+	 * @param phi
+	 * @param tolerance
+	 * @return	Returns the step estimated from the curvature at phi.
+	 */
+	private double estimateStep(double phi, double tolerance) {
+		final double rCenter = rBig - rSmall;
+		final double rPen = lambda*rSmall;
+		final double penFactor = 1.0 - rBig/rSmall;
+
+		double cosPhi = Math.cos(phi);
+		double sinPhi = Math.sin(phi);
+		double cosPen = Math.cos(phi*penFactor);
+		double sinPen = Math.sin(phi*penFactor);
+
+		// first and second derivatives:
+		double dx = -rCenter*sinPhi - rPen*penFactor*sinPen;
+		double dy = rCenter*cosPhi + rPen*penFactor*cosPen;
+		double ddx = -rCenter*cosPhi - rPen*penFactor*penFactor*cosPen;
+		double ddy = -rCenter*sinPhi - rPen*penFactor*penFactor*sinPen;
+
+		double speed = Math.sqrt(dx*dx + dy*dy);
+		double cross = Math.abs(dx*ddy - dy*ddx);	// == curvature * speed^3
+		if (cross==0.0) return Double.MAX_VALUE;
+
+		return Math.sqrt(8.0 * tolerance * speed / cross);
+	}
+
+	/**
+	 * Calculates the first derivative of the figure point with respect to
+	 * the angle phi. The results can be queried with getFigureDX and
+	 * getFigureDY.
+	 * 
+	 * @param phi
+	 */
+	public void calculateDerivative(double phi) {
+		final double rCenter = rBig - rSmall;
+		final double rPen = lambda*rSmall;
+		final double penFactor = 1.0 - rBig/rSmall;
+
+		figureDX = -rCenter*Math.sin(phi) - rPen*penFactor*Math.sin(phi*penFactor);
+		figureDY = rCenter*Math.cos(phi) + rPen*penFactor*Math.cos(phi*penFactor);
+	}
+
+	/**
+	 * @return	Returns an upper bound for the length of the fourth 
+	 * 			derivative of the figure point with respect to phi. 
+	 */
+	public double getFourthDerivativeBound() {
+		final double penFactor = 1.0 - rBig/rSmall;
+		final double pf2 = penFactor*penFactor;
+		return Math.abs(rBig - rSmall) + Math.abs(lambda*rSmall)*pf2*pf2;
+	}
+
+	/**
+	 * Holds the vectorized kernel. The kernel is loaded when the class is 
+	 * initialized, that is on the first use, and the lookup does not lock.
+	 */
+	private static final class VectorKernelHolder {
+		static final IPointKernel KERNEL = loadVectorKernel();
+	}
+
+	/**
+	 * Loads the vectorized kernel. The kernel class can be chosen by 
+	 * defining <code>de.admadic.spiromat.math.vectorKernelClass</code>
+	 * as an option to the VM. If the class cannot be loaded (for instance
+	 * because the VM has not been started with 
+	 * <code>--add-modules jdk.incubator.vector</code>), no kernel is used.
+	 * 
+	 * @return	Returns the vectorized kernel or null if it is not available.
+	 */
+	static IPointKernel loadVectorKernel() {
+		try {
+			String className = System.getProperty(
+					VECTOR_KERNEL_PROPNAME, VECTOR_KERNEL_CLASSNAME);
+			Class<?> kernelClass = Class.forName(className);
+			return (IPointKernel) kernelClass.getConstructor().newInstance();
+		} catch (Throwable e) {
+			// no vector support, we fall back to the exact calculation
+			return null;
+		}
+	}
+
+	/**
+	 * @return	Returns the vectorized kernel or null if it is not available.
+	 */
+	static IPointKernel getVectorKernel() {
+		return VectorKernelHolder.KERNEL;
+	}
+
+	/**
+	 * Calculates points on the circle with the given radius around the 
+	 * origin for the angles <code>phiStart + i*phiStep</code> with 
+	 * <code>i = 0..count-1</code>. The vectorized kernel is used if it 
+	 * is available.
+	 * 
+	 * @param radius	The radius of the circle.
+	 * @param phiStart	The angle of the first point.
+	 * @param phiStep	The angle increment from point to point.
+	 * @param count		The number of points to calculate.
+	 * @param xOut		The array receiving the x coordinates.
+	 * @param yOut		The array receiving the y coordinates.
+	 * @param offset	The index of the first point in the arrays.
+	 */
+	public static void calculateCirclePoints(
+			double radius, double phiStart, double phiStep, int count, 
+			double [] xOut, double [] yOut, int offset) {
+		IPointKernel kernel = getVectorKernel();
+		if (kernel==null) {
+			for (int i=0; i<count; i++) {
+				double phi = phiStart + i*phiStep;
+				xOut[offset + i] = radius*Math.cos(phi);
+				yOut[offset + i] = radius*Math.sin(phi);
+			}
+			return;
+		}
+		// a figure without pen hole offset is the track of the gear center, 
+		// which is the unit circle for these radii:
+		kernel.calculateFigurePoints(
+				2.0, 1.0, 0.0, phiStart, phiStep, count, xOut, yOut, offset);
+		if (radius!=1.0) {
+			for (int i=0; i<count; i++) {
+				xOut[offset + i] *= radius;
+				yOut[offset + i] *= radius;
+			}
+		}
+	}
+
+	/**
+	 * @return	Returns true, if the VECTOR mode uses a vectorized kernel.
+	 */
+	public static boolean isVectorKernelAvailable() {
+		return getVectorKernel()!=null;
+	}
+
+	/**
+	 * @return the generationMode
+	 */
+	public GenerationMode getGenerationMode() {
+		return generationMode;
+	}
+
+	/**
+	 * @param generationMode the generationMode to set
+	 */
+	public void setGenerationMode(GenerationMode generationMode) {
+		this.generationMode = generationMode;
+	}
+
 	/**
 	 * @return the figureX
 	 */
@@ -99,6 +410,20 @@ public class SpiroMath {
 		return figureY;
 	}
 
+	/**
+	 * @return the figureDX
+	 */
+	public double getFigureDX() {
+		return figureDX;
+	}
+
+	/**
+	 * @return the figureDY
+	 */
+	public double getFigureDY() {
+		return figureDY;
+	}
+
 	/**
 	 * @return the smallGearCenterX
 	 */
@@ -56,12 +56,78 @@ public class Util {
 		return lcm;
 	}
 
+	/**
+	 * @param a0
+	 * @param b0
+	 * @return	Returns the greatest common divisor (which is positive, 
+	 * 			unless both arguments are 0).
+	 */
+	public static long gcd(long a0, long b0) {
+		long a = Math.abs(a0);
+		long b = Math.abs(b0);
+		long t;
+		while (b!=0) {
+			t = b;
+			b = a % b;
+			a = t;
+		}
+		return a;
+	}
+
+	/**
+	 * @param a0
+	 * @param b0
+	 * @return	Returns the least common multiple
+	 */
+	public static long lcm(long a0, long b0) {
+		if (a0==0 || b0==0) return 0;
+		return Math.abs(a0 / gcd(a0, b0) * b0);
+	}
+
 	/**
 	 * @param rBig
 	 * @param rSmall
 	 * @return	Returns the number of rounds for the given gear radii.
+	 * @see #calculateRounds(long[], long[])
 	 */
 	public static int calculateRounds(int rBig, int rSmall) {
 		return lcm(rBig, rSmall) / rBig;
 	}
+
+	/**
+	 * Calculates the number of rounds after which a curve closes, which is 
+	 * a sum of phasors rotating with the rational frequencies 
+	 * <code>num[k]/den[k]</code> (in rounds per round of the driving 
+	 * angle). The curve closes after L rounds, if all phasors have done
+	 * an integer number of rounds, which means that L is the least common 
+	 * multiple of the reduced denominators.
+	 * For a single inner gear the frequencies are 1 and (r-R)/r, which
+	 * results in lcm(R,r)/R like {@link #calculateRounds(int, int)}.
+	 * 
+	 * @param num	The numerators of the frequencies.
+	 * @param den	The denominators of the frequencies (non-zero).
+	 * @return	Returns the number of rounds.
+	 */
+	public static long calculateRounds(long [] num, long [] den) {
+		long rounds = 1;
+		for (int k=0; k<num.length; k++) {
+			long q = Math.abs(den[k] / gcd(num[k], den[k]));
+			rounds = lcm(rounds, q);
+		}
+		return rounds;
+	}
+
+	/**
+	 * @param rBig
+	 * @param rSmall
+	 * @param deltaPhi	The angle step between two points.
+	 * @return	Returns the number of points of the full figure for the 
+	 * 			given gear radii, if it is sampled with the given step.
+	 * 			(Both end points are included.)
+	 */
+	public static int calculatePointCount(int rBig, int rSmall, double deltaPhi) {
+		double steps = calculateRounds(rBig, rSmall) * Math.PI * 2 / deltaPhi;
+		// the steps are often integer - don't let rounding errors add one:
+		return (int) Math.ceil(steps - 1e-9) + 1;
+	}
 }
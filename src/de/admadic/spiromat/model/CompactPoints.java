@@ -0,0 +1,222 @@
+/**
+ *
+ * #license-begin#
+ * MIT License
+ *
+ * Copyright (c) 2005 - 2022 admaDIC GbR - http://www.admadic.de/
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * #license-end#
+ *
+ * $Id$ 
+ */
+package de.admadic.spiromat.model;
+
+import java.nio.FloatBuffer;
+
+/**
+ * Provides a compact form of a range of points for figures which are not 
+ * extended (the inactive figures of a document). The coordinates are 
+ * rounded to multiples of QUANTUM. Each coordinate is stored as the 
+ * difference to the value predicted from the two points before (second 
+ * order differences), which is small for the smooth curves. The 
+ * differences are written as variable length integers, so most 
+ * coordinates need one or two bytes instead of four.
+ * 
+ * The points are expanded into a new storage on each request, so the 
+ * expanded form only lives as long as it is used.
+ * 
+ * @author Rainer Schwarze
+ */
+public class CompactPoints {
+	/** the resolution of the stored coordinates in model pixels */
+	public final static double QUANTUM = 1.0 / 64;
+
+	final private byte [] data;
+	final private int startIndex;
+	final private int count;
+
+	/**
+	 * @param data
+	 * @param startIndex
+	 * @param count
+	 */
+	private CompactPoints(byte [] data, int startIndex, int count) {
+		super();
+		this.data = data;
+		this.startIndex = startIndex;
+		this.count = count;
+	}
+
+	/**
+	 * Creates the compact form of the points from..from+count-1.
+	 * 
+	 * @param view	The points.
+	 * @param from	The index of the first point.
+	 * @param count	The number of points.
+	 * @return	Returns the compact form.
+	 */
+	public static CompactPoints encode(PointStoreView view, int from, int count) {
+		Encoder enc = new Encoder(2*count + 16);
+		int x1 = 0, y1 = 0;
+		int x2 = 0, y2 = 0;
+		for (int i=0; i<count; i++) {
+			int x = (int) Math.round(view.getX(from + i) / QUANTUM);
+			int y = (int) Math.round(view.getY(from + i) / QUANTUM);
+			enc.write(x - 2*x1 + x2);
+			enc.write(y - 2*y1 + y2);
+			x2 = x1;
+			y2 = y1;
+			x1 = x;
+			y1 = y;
+		}
+		return new CompactPoints(enc.toByteArray(), from, count);
+	}
+
+	/**
+	 * Expands the points into new blocks. The blocks are on the heap and 
+	 * not registered anywhere, so they are dropped with the view.
+	 * 
+	 * @return	Returns a view of the points with the original indexes.
+	 */
+	public PointStoreView expand() {
+		int blockCount = (count + PointStore.BLOCK_SIZE - 1) >> PointStore.BLOCK_SHIFT;
+		final FloatBuffer [] blocks = new FloatBuffer[Math.max(blockCount, 1)];
+		for (int b=0; b<blocks.length; b++) {
+			blocks[b] = FloatBuffer.allocate(2*PointStore.BLOCK_SIZE);
+		}
+		decode(new IPointSink() {
+			public void setPoint(int i, float x, float y) {
+				FloatBuffer block = blocks[i >> PointStore.BLOCK_SHIFT];
+				int pos = 2*(i & PointStore.BLOCK_MASK);
+				block.put(pos, x);
+				block.put(pos + 1, y);
+			}
+		});
+		// the physical position 0 holds the point startIndex:
+		return new PointStoreView(blocks, -startIndex);
+	}
+
+	/**
+	 * Expands the points into the store, using the original indexes.
+	 * 
+	 * @param store
+	 */
+	public void expandInto(final PointStore store) {
+		store.ensureRange(startIndex, startIndex + count);
+		decode(new IPointSink() {
+			public void setPoint(int i, float x, float y) {
+				store.setPoint(startIndex + i, x, y);
+			}
+		});
+	}
+
+	/**
+	 * @param sink	Receives the points with the indexes 0..count-1.
+	 */
+	private void decode(IPointSink sink) {
+		int pos = 0;
+		int x1 = 0, y1 = 0;
+		int x2 = 0, y2 = 0;
+		for (int i=0; i<count; i++) {
+			int v = 0;
+			int shift = 0;
+			int b;
+			do {
+				b = data[pos++];
+				v |= (b & 0x7f) << shift;
+				shift += 7;
+			} while ((b & 0x80)!=0);
+			int x = ((v >>> 1) ^ -(v & 1)) + 2*x1 - x2;
+			v = 0;
+			shift = 0;
+			do {
+				b = data[pos++];
+				v |= (b & 0x7f) << shift;
+				shift += 7;
+			} while ((b & 0x80)!=0);
+			int y = ((v >>> 1) ^ -(v & 1)) + 2*y1 - y2;
+			sink.setPoint(i, (float) (x * QUANTUM), (float) (y * QUANTUM));
+			x2 = x1;
+			y2 = y1;
+			x1 = x;
+			y1 = y;
+		}
+	}
+
+	/**
+	 * @return	Returns the index of the first point.
+	 */
+	public int getStartIndex() {
+		return startIndex;
+	}
+
+	/**
+	 * @return	Returns the number of points.
+	 */
+	public int getPointCount() {
+		return count;
+	}
+
+	/**
+	 * @return	Returns the number of bytes of the compact form.
+	 */
+	public int getByteCount() {
+		return data.length;
+	}
+
+	/**
+	 * Receives the decoded points.
+	 */
+	private interface IPointSink {
+		abstract public void setPoint(int i, float x, float y);
+	}
+
+	/**
+	 * Writes the zigzag encoded variable length integers.
+	 */
+	private static class Encoder {
+		private byte [] buf;
+		private int size;
+
+		Encoder(int capacity) {
+			buf = new byte[capacity];
+		}
+
+		void write(int value) {
+			if (size + 5 > buf.length) {
+				byte [] tmp = new byte[2*buf.length + 5];
+				System.arraycopy(buf, 0, tmp, 0, size);
+				buf = tmp;
+			}
+			int v = (value << 1) ^ (value >> 31);
+			while ((v & ~0x7f)!=0) {
+				buf[size++] = (byte) ((v & 0x7f) | 0x80);
+				v >>>= 7;
+			}
+			buf[size++] = (byte) v;
+		}
+
+		byte[] toByteArray() {
+			byte [] tmp = new byte[size];
+			System.arraycopy(buf, 0, tmp, 0, size);
+			return tmp;
+		}
+	}
+}
@@ -0,0 +1,310 @@
+/**
+ *
+ * #license-begin#
+ * MIT License
+ *
+ * Copyright (c) 2005 - 2022 admaDIC GbR - http://www.admadic.de/
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * #license-end#
+ *
+ * $Id$ 
+ */
+package de.admadic.spiromat.model;
+
+import java.nio.FloatBuffer;
+
+/**
+ * Provides simplified versions (levels of detail) of the polyline of a 
+ * figure. Level k deviates at most <code>BASE_ERROR * 2^k</code> model 
+ * pixels from the full polyline. The levels are built from the full 
+ * polyline on first use with the Douglas-Peucker algorithm. Usually only
+ * one level is needed for a given canvas scale.
+ * 
+ * A pyramid refers to the range of points of one generation, which does
+ * not change. When points have been added at the ends of the range, the 
+ * FigureModel creates a pyramid for the new range from the previous one: 
+ * the levels which exist already are extended by simplifying only the 
+ * added points (the joints are points of both parts, so the error bound 
+ * holds for the whole level). The levels may be requested by several 
+ * threads. A pyramid only requests the points while building a level, 
+ * so compacted points are not kept expanded.
+ * 
+ * @author Rainer Schwarze
+ */
+public class DetailPyramid {
+	/** the maximum deviation of level 0 in model pixels */
+	public final static double BASE_ERROR = 0.25;
+	/** the number of levels */
+	public final static int LEVEL_COUNT = 6;
+
+	final private FigureSnapshot snapshot;
+	final private int generation;
+	final private int from;
+	final private int count;
+
+	// the points of the levels, interleaved as x0,y0,x1,y1,...:
+	final private float [][] levels = new float[LEVEL_COUNT][];
+	final private int [] levelCounts = new int[LEVEL_COUNT];
+
+	// the levels of a previous pyramid for a part of the range, which are
+	// extended to this range when they are requested. They are shared, so
+	// they are not modified:
+	final private float [][] baseLevels = new float[LEVEL_COUNT][];
+	final private int [] baseCounts = new int[LEVEL_COUNT];
+	// the part of the range covered by the base levels:
+	final private int [] baseFroms = new int[LEVEL_COUNT];
+	final private int [] baseEnds = new int[LEVEL_COUNT];
+
+	/**
+	 * @param snapshot	The snapshot of the full polyline.
+	 */
+	public DetailPyramid(FigureSnapshot snapshot) {
+		this(snapshot, null);
+	}
+
+	/**
+	 * Creates the pyramid for the snapshot. The levels of the previous 
+	 * pyramid are reused, if it has been created for a part of the 
+	 * snapshot's points.
+	 * 
+	 * @param snapshot	The snapshot of the full polyline.
+	 * @param previous	The previous pyramid of the model or null.
+	 */
+	public DetailPyramid(FigureSnapshot snapshot, DetailPyramid previous) {
+		super();
+		this.snapshot = snapshot;
+		this.generation = snapshot.getGeneration();
+		this.from = snapshot.getStartIndex();
+		this.count = snapshot.getPointCount();
+		if (previous!=null && previous.isPartOf(snapshot)) {
+			previous.copyLevels(this);
+		}
+	}
+
+	/**
+	 * @param snapshot
+	 * @return	Returns true, if the pyramid has been created for the 
+	 * 			points of the snapshot, that is for the same generation and 
+	 * 			range.
+	 */
+	public boolean isValidFor(FigureSnapshot snapshot) {
+		return generation==snapshot.getGeneration() && 
+			from==snapshot.getStartIndex() && 
+			count==snapshot.getPointCount();
+	}
+
+	/**
+	 * @param snapshot
+	 * @return	Returns true, if the points of this pyramid are a part of 
+	 * 			the points of the snapshot.
+	 */
+	boolean isPartOf(FigureSnapshot snapshot) {
+		return generation==snapshot.getGeneration() && count>0 && 
+			from>=snapshot.getStartIndex() && 
+			from + count<=snapshot.getEndIndex();
+	}
+
+	/**
+	 * Hands the existing levels to the pyramid for a larger range. Levels
+	 * which have not been requested from this pyramid are handed on from 
+	 * its base.
+	 * 
+	 * @param target
+	 */
+	private synchronized void copyLevels(DetailPyramid target) {
+		for (int level=0; level<LEVEL_COUNT; level++) {
+			if (levels[level]!=null) {
+				target.baseLevels[level] = levels[level];
+				target.baseCounts[level] = levelCounts[level];
+				target.baseFroms[level] = from;
+				target.baseEnds[level] = from + count;
+			} else {
+				target.baseLevels[level] = baseLevels[level];
+				target.baseCounts[level] = baseCounts[level];
+				target.baseFroms[level] = baseFroms[level];
+				target.baseEnds[level] = baseEnds[level];
+			}
+		}
+	}
+
+	/**
+	 * @param tolerance	The allowed deviation in model pixels.
+	 * @return	Returns the coarsest level which keeps the tolerance or -1, 
+	 * 			if even level 0 is too coarse.
+	 */
+	public static int getLevelFor(double tolerance) {
+		if (tolerance<BASE_ERROR) return -1;
+		int level = (int) Math.floor(Math.log(tolerance / BASE_ERROR) / Math.log(2.0));
+		return Math.min(level, LEVEL_COUNT - 1);
+	}
+
+	/**
+	 * @param level
+	 * @return	Returns the maximum deviation of the level in model pixels.
+	 */
+	public static double getLevelError(int level) {
+		return BASE_ERROR * (1 << level);
+	}
+
+	/**
+	 * Fills the view with the points of the level. The level is built if 
+	 * it does not exist yet.
+	 * 
+	 * @param level
+	 * @param range
+	 */
+	public synchronized void getLevel(int level, PointRange range) {
+		if (levels[level]==null) {
+			buildLevel(level);
+		}
+		range.clear();
+		range.visitSegment(FloatBuffer.wrap(levels[level]), 0, levelCounts[level]);
+	}
+
+	/**
+	 * @param level
+	 * @return	Returns the number of points of the level.
+	 */
+	public synchronized int getPointCount(int level) {
+		if (levels[level]==null) {
+			buildLevel(level);
+		}
+		return levelCounts[level];
+	}
+
+	/**
+	 * @param level
+	 */
+	private void buildLevel(int level) {
+		float [] base = baseLevels[level];
+		if (base==null) {
+			float [] tmp = simplifyRange(from, count, level);
+			levels[level] = tmp;
+			levelCounts[level] = tmp.length / 2;
+			return;
+		}
+		// only the added points are simplified, the parts share the joints:
+		float [] head = simplifyRange(from, baseFroms[level] - from + 1, level);
+		int baseEnd = baseEnds[level];
+		float [] tail = simplifyRange(baseEnd - 1, from + count - baseEnd + 1, level);
+		int headCount = head.length/2 - 1;
+		int baseLevelCount = baseCounts[level];
+		int tailCount = tail.length/2 - 1;
+		float [] tmp = new float[2*(headCount + baseLevelCount + tailCount)];
+		System.arraycopy(head, 0, tmp, 0, 2*headCount);
+		System.arraycopy(base, 0, tmp, 2*headCount, 2*baseLevelCount);
+		System.arraycopy(tail, 2, tmp, 2*(headCount + baseLevelCount), 2*tailCount);
+		levels[level] = tmp;
+		levelCounts[level] = tmp.length / 2;
+		baseLevels[level] = null;
+	}
+
+	/**
+	 * @param first	The index of the first point.
+	 * @param n		The number of points.
+	 * @param level
+	 * @return	Returns the simplified points of the range.
+	 */
+	private float [] simplifyRange(int first, int n, int level) {
+		float [] src = snapshot.getPoints().copyPoints(first, n);
+		float [] dst = new float[2*n];
+		int dstCount = simplify(src, n, getLevelError(level), dst);
+		float [] tmp = new float[2*dstCount];
+		System.arraycopy(dst, 0, tmp, 0, 2*dstCount);
+		return tmp;
+	}
+
+	/**
+	 * Simplifies the polyline with the Douglas-Peucker algorithm.
+	 * 
+	 * @param src		The points of the polyline.
+	 * @param count		The number of points.
+	 * @param tolerance	The allowed deviation.
+	 * @param dst		The array receiving the remaining points.
+	 * @return	Returns the number of remaining points.
+	 */
+	static int simplify(float [] src, int count, double tolerance, float [] dst) {
+		if (count<3) {
+			System.arraycopy(src, 0, dst, 0, 2*count);
+			return count;
+		}
+		boolean [] keep = new boolean[count];
+		keep[0] = true;
+		keep[count - 1] = true;
+		// the stack of the index pairs which have to be checked:
+		int [] stack = new int[64];
+		int sp = 0;
+		stack[sp++] = 0;
+		stack[sp++] = count - 1;
+		final double tolerance2 = tolerance * tolerance;
+		while (sp>0) {
+			int last = stack[--sp];
+			int first = stack[--sp];
+			double x0 = src[2*first];
+			double y0 = src[2*first + 1];
+			double dx = src[2*last] - x0;
+			double dy = src[2*last + 1] - y0;
+			double len2 = dx*dx + dy*dy;
+			double maxDist2 = -1.0;
+			int maxIndex = -1;
+			for (int i=first + 1; i<last; i++) {
+				double px = src[2*i] - x0;
+				double py = src[2*i + 1] - y0;
+				double dist2;
+				double t = (len2>0.0) ? (px*dx + py*dy) / len2 : 0.0;
+				if (t<=0.0) {
+					dist2 = px*px + py*py;
+				} else if (t>=1.0) {
+					double qx = px - dx;
+					double qy = py - dy;
+					dist2 = qx*qx + qy*qy;
+				} else {
+					double cross = px*dy - py*dx;
+					dist2 = cross*cross / len2;
+				}
+				if (dist2>maxDist2) {
+					maxDist2 = dist2;
+					maxIndex = i;
+				}
+			}
+			if (maxIndex>=0 && maxDist2>tolerance2) {
+				keep[maxIndex] = true;
+				if (sp + 4 > stack.length) {
+					int [] tmp = new int[2*stack.length];
+					System.arraycopy(stack, 0, tmp, 0, sp);
+					stack = tmp;
+				}
+				stack[sp++] = first;
+				stack[sp++] = maxIndex;
+				stack[sp++] = maxIndex;
+				stack[sp++] = last;
+			}
+		}
+		int n = 0;
+		for (int i=0; i<count; i++) {
+			if (keep[i]) {
+				dst[2*n] = src[2*i];
+				dst[2*n + 1] = src[2*i + 1];
+				n++;
+			}
+		}
+		return n;
+	}
+}
@@ -142,6 +142,11 @@ public class DocModel implements Serializable, DontObfuscate {
 	 * Sets the default data for a fresh document model.
 	 */
 	public void setDefaults() {
+		// the dropped figures do not need their points anymore:
+		for (FigureSpec fs : figureSpecs) {
+			fs.removePropertyChangeListener(figureChangeListener);
+			fs.releaseFigureModel();
+		}
 		figureSpecs.clear();
 		addFigureSpec(ModelUtil.createStandardFigureSpec(this));
 	}
@@ -229,6 +234,8 @@ public class DocModel implements Serializable, DontObfuscate {
 		if (lastActive!=-1) {
 			setActiveFigureIndex(lastActive);
 		}
+		// the removed figure does not need its points anymore:
+		fs.releaseFigureModel();
 	}
 
 	/**
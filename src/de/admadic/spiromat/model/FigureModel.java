@@ -28,7 +28,13 @@
  */
 package de.admadic.spiromat.model;
 
+import java.awt.geom.Path2D;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
 import de.admadic.spiromat.log.Logger;
+import de.admadic.spiromat.math.CenterTrack;
+import de.admadic.spiromat.math.LobeTable;
 import de.admadic.spiromat.math.SpiroMath;
 import de.admadic.spiromat.math.Util;
 
@@ -40,22 +46,79 @@ public class FigureModel {
 	final static Logger logger = Logger.getLogger(FigureModel.class);
 
 	SpiroMath spiroMath;
+	double rBig;
+	double rSmall;
+	double lambda;
 
 	double phiMin;
 	double phiMax;
 	double phiSpan;
 
-	float [] xAry;
-	float [] yAry;
-	int [] xAryInt;
-	int [] yAryInt;
+	// the points, addressed by the logical indexes below:
+	PointStore points;
 	int startIndex;
 	int endIndex;
-
-	int drawnStartIndex = -1;
-	int drawnEndIndex = -1;
-
-	double deltaPhi = Math.PI * 2 / 50;
+	// the points of an inactive figure, null if they are in the store:
+	private CompactPoints compactPoints;
+
+	// the state which is read by other threads. It is replaced after 
+	// every change, the readers do not lock the model:
+	private volatile FigureSnapshot snapshot;
+	// incremented whenever the points are replaced:
+	private int generation;
+
+	// the (maximum) angle step between two points:
+	final static double DELTA_PHI = Math.PI * 2 / 50;
+	// the actual angle step. The points are located on the grid k*deltaPhi:
+	double deltaPhi = DELTA_PHI;
+	// the largest step allowed for the current radii:
+	double maxStep = DELTA_PHI;
+
+	/** the number of bytes used for storing one point */
+	public final static int BYTES_PER_POINT = 2*4;
+	// the maximum number of points of a full figure. Figures with more 
+	// points are sampled with a larger step:
+	private static int maxPointCount = 1000000;
+	// the number of points of the full figure:
+	private int predictedPointCount;
+
+	// the table for producing points from one lobe of the figure, null
+	// if the radii do not support that:
+	private LobeTable lobeTable;
+	// the track of the gear center for fast changes of the pen hole 
+	// position, null until the pen hole position is changed:
+	private CenterTrack centerTrack;
+	// the simplified versions of the points, null until they are requested.
+	// The pyramid belongs to the generation and range it has been created 
+	// for:
+	private volatile DetailPyramid detailPyramid;
+
+	private static final String ADAPTIVE_TOLERANCE_PROPNAME = "de.admadic.spiromat.model.adaptiveTolerance"; //$NON-NLS-1$
+	// the chord tolerance (in model pixels) for adaptive sampling. If it is
+	// zero, the points are sampled with the fixed step deltaPhi:
+	private static double defaultAdaptiveTolerance = 
+		getDoubleProperty(ADAPTIVE_TOLERANCE_PROPNAME, 0.0);
+	private double adaptiveTolerance = defaultAdaptiveTolerance;
+	// limits of the adaptive step relative to deltaPhi:
+	final static double ADAPTIVE_MIN_STEP_FACTOR = 1.0 / 16;
+	final static double ADAPTIVE_MAX_STEP_FACTOR = 4.0;
+
+	// the mode for calculating runs of points. The vectorized kernel is 
+	// used if the VM supports it. Otherwise we rotate, because the points 
+	// are sampled with a fixed step:
+	private static SpiroMath.GenerationMode generationMode = 
+		SpiroMath.isVectorKernelAvailable() ? 
+				SpiroMath.GenerationMode.VECTOR : SpiroMath.GenerationMode.ROTATOR;
+
+	// the number of grid points from which on the calculation is split 
+	// into chunks which are calculated in parallel:
+	private static int parallelThreshold = 16384;
+	// the maximum number of points calculated by one parallel task:
+	final static int PARALLEL_CHUNK_SIZE = 4096;
+
+	// scratch arrays for the bulk calculation of points:
+	private double [] xTmp;
+	private double [] yTmp;
 
 //	private boolean visible = true;
 
@@ -86,26 +149,88 @@ public class FigureModel {
 	 * @param lambda 
 	 * @param phiStart 
 	 */
-	public void setParameters(double rBig, double rSmall, double lambda, double phiStart) {
+	public synchronized void setParameters(double rBig, double rSmall, double lambda, double phiStart) {
 		logger.debug("setting new parameters... (clearing data!)"); //$NON-NLS-1$
 		spiroMath = new SpiroMath(rBig, rSmall, lambda);
+		spiroMath.setGenerationMode(generationMode);
+		this.rBig = rBig;
+		this.rSmall = rSmall;
+		this.lambda = lambda;
+		centerTrack = null;
 
 		phiMin = phiStart;
 		phiMax = phiStart;
 		phiSpan = Util.calculateRounds((int)rBig, (int)rSmall) * Math.PI * 2;
+		maxStep = calculateMaxStep(rBig, rSmall);
+		if (maxStep!=DELTA_PHI) {
+			logger.warn("figure with " +  //$NON-NLS-1$
+					Util.calculatePointCount((int)rBig, (int)rSmall, DELTA_PHI) + 
+					" points exceeds the limit, downsampling"); //$NON-NLS-1$
+		}
+		if (LobeTable.isApplicable(rBig, rSmall)) {
+			lobeTable = new LobeTable((int)rBig, (int)rSmall, lambda, maxStep);
+			deltaPhi = lobeTable.getDeltaPhi();
+		} else {
+			lobeTable = null;
+			deltaPhi = maxStep;
+		}
+		predictedPointCount = Util.calculatePointCount((int)rBig, (int)rSmall, deltaPhi);
 
-		xAry = new float[17];
-		yAry = new float[17];
-		xAryInt = new int[17];
-		yAryInt = new int[17];
-		startIndex = 5;
-		endIndex = 5;
-
-		drawnStartIndex = -1;
-		drawnEndIndex = -1;
+		replaceStore();
+		startIndex = 0;
+		endIndex = 0;
+		publish();
 	}
 	
 
+	/**
+	 * Changes the position of the pen hole and recalculates the points for 
+	 * the current angle interval. With the fixed step sampling the points
+	 * are produced from the cached center track, which is created on the 
+	 * first call for the current radii and interval. So further calls 
+	 * (like when dragging the pen hole slider) do not need trigonometric 
+	 * functions.
+	 * 
+	 * @param lambda
+	 */
+	public synchronized void setLambda(double lambda) {
+		logger.debug("setting new lambda... (recalculating data!)"); //$NON-NLS-1$
+		this.lambda = lambda;
+		spiroMath = new SpiroMath(rBig, rSmall, lambda);
+		spiroMath.setGenerationMode(generationMode);
+		if (lobeTable!=null) {
+			lobeTable = new LobeTable((int)rBig, (int)rSmall, lambda, maxStep);
+		}
+
+		double phiFrom = phiMin;
+		double phiTo = phiMax;
+		// handed out ranges must not change, so we use a new store:
+		replaceStore();
+		startIndex = 0;
+		endIndex = 0;
+
+		if (adaptiveTolerance>0.0 || phiFrom==phiTo) {
+			phiMax = phiFrom;
+			if (!addPoints(phiTo)) {
+				publish();
+			}
+			return;
+		}
+
+		if (centerTrack==null || 
+				!centerTrack.isValidFor(rBig, rSmall, deltaPhi, phiFrom, phiTo)) {
+			centerTrack = new CenterTrack(rBig, rSmall, deltaPhi, phiFrom, phiTo);
+		}
+		int count = centerTrack.getCount();
+		if (xTmp==null || xTmp.length<count) {
+			growScratch(count);
+		}
+		centerTrack.calculateFigurePoints(lambda, xTmp, yTmp, 0);
+		preallocate(true);
+		appendPoints(count);
+		publish();
+	}
+
 	/**
 	 * @param phi
 	 * @return Returns true, if the list of points was changed, otherwise false.
@@ -119,291 +244,725 @@ public class FigureModel {
 			return false;
 		}
 
-		if (phi<phiMin) {
-			// go downwards:
-			for (double phiTmp = phiMin; phiTmp > phi; phiTmp -= deltaPhi) {
-				addPoint(phiTmp, false);
+		expand();
+		if (startIndex==endIndex) {
+			preallocate(phi>phiMax);
+		}
+
+		if (adaptiveTolerance>0.0) {
+			if (phi<phiMin) {
+				prependPoints(calculateAdaptivePoints(phiMin, phi));
+			} else {
+				appendPoints(calculateAdaptivePoints(phiMax, phi));
 			}
-			addPoint(phi, false);
+		} else if (phi<phiMin) {
+			// go downwards over the grid points between phi and phiMin:
+			long kFrom = (long) Math.ceil(phiMin / deltaPhi) - 1;
+			long kTo = (long) Math.floor(phi / deltaPhi) + 1;
+			prependPoints(calculateGridPoints(phiMin, kFrom, -1, kFrom - kTo + 1, phi));
 		} else {
-			// go upwards:
-			for (double phiTmp = phiMax; phiTmp < phi; phiTmp += deltaPhi) {
-				addPoint(phiTmp, true);
-			}
-			addPoint(phi, true);
+			// go upwards over the grid points between phiMax and phi:
+			long kFrom = (long) Math.floor(phiMax / deltaPhi) + 1;
+			long kTo = (long) Math.ceil(phi / deltaPhi) - 1;
+			appendPoints(calculateGridPoints(phiMax, kFrom, 1, kTo - kFrom + 1, phi));
 		}
 		if (phi<phiMin) phiMin = phi;
 		if (phi>phiMax) phiMax = phi;
+		publish();
 		return true;
 	}
 
 	/**
-	 * @param phi
-	 * @param toEnd append to end or to front
+	 * Adds the points up to phiFrom and phiTo, like two calls of 
+	 * {@link #addPoints(double)}. If the model does not contain any points 
+	 * yet, the points are taken from the GeometryCache, if available (also
+	 * if they have been calculated for radii with the same ratio). 
+	 * Otherwise they are calculated and stored in the cache. Adaptive 
+	 * sampling depends on the order of the calls and is not cached.
+	 * 
+	 * @param phiFrom
+	 * @param phiTo
 	 */
-	private void addPoint(double phi, boolean toEnd) {
-		spiroMath.calculate(phi);
-		
-		double curx = spiroMath.getFigureX();
-		double cury = spiroMath.getFigureY();
-
-		// logger.debug("adding " + curx + "/" + cury + " toEnd=" + toEnd);
-		
-		if (toEnd) {
-			if (endIndex>=xAryInt.length) {
-				growEnd();
-			}
-			xAry[endIndex] = (float) curx;
-			yAry[endIndex] = (float) cury;
-			xAryInt[endIndex] = (int) curx;
-			yAryInt[endIndex] = (int) cury;
-			endIndex++;
-		} else {
-			if (startIndex==0) {
-				growStart();
+	public synchronized void addInterval(double phiFrom, double phiTo) {
+		if (startIndex!=endIndex || adaptiveTolerance>0.0) {
+			addPoints(phiFrom);
+			addPoints(phiTo);
+			return;
+		}
+		double phiLow = Math.min(phiMin, Math.min(phiFrom, phiTo));
+		double phiHigh = Math.max(phiMax, Math.max(phiFrom, phiTo));
+		if (phiLow==phiHigh) return;
+
+		double scale = GeometryCache.calculateScale(rBig, rSmall);
+		GeometryCache.Entry entry = GeometryCache.get(createCacheKey(scale, phiLow, phiHigh));
+		if (entry!=null) {
+			float [] coords = entry.getCoordinates();
+			int count = entry.getPointCount();
+			startIndex = entry.getStartIndex();
+			points.ensureRange(startIndex, startIndex + count);
+			if (entry.getScale()==scale) {
+				for (int i=0; i<count; i++) {
+					points.setPoint(startIndex + i, coords[2*i], coords[2*i + 1]);
+				}
+			} else {
+				double f = scale / entry.getScale();
+				for (int i=0; i<count; i++) {
+					points.setPoint(startIndex + i, 
+							(float) (coords[2*i] * f), (float) (coords[2*i + 1] * f));
+				}
 			}
-			startIndex--;
-			xAry[startIndex] = (float) curx;
-			yAry[startIndex] = (float) cury;
-			xAryInt[startIndex] = (int) curx;
-			yAryInt[startIndex] = (int) cury;
+			endIndex = startIndex + count;
+			phiMin = phiLow;
+			phiMax = phiHigh;
+			publish();
+			return;
+		}
+
+		addPoints(phiFrom);
+		addPoints(phiTo);
+		if (startIndex!=endIndex) {
+			GeometryCache.put(
+					createCacheKey(scale, phiMin, phiMax), 
+					new GeometryCache.Entry(
+							points.getView().copyPoints(startIndex, endIndex - startIndex), 
+							startIndex, scale));
 		}
-		
 	}
 
 	/**
+	 * The angle step is calculated for the reduced radii, because the 
+	 * quotients may differ in the last digit for other scales.
 	 * 
+	 * @param scale
+	 * @param phiFrom
+	 * @param phiTo
+	 * @return	Returns the key for the points of this model in the interval.
 	 */
-	private void growStart() {
-		int extension = xAryInt.length / 4;
-		int newsize = xAryInt.length + extension;
+	private GeometryCache.Key createCacheKey(double scale, double phiFrom, double phiTo) {
+		double rBigUnit = rBig / scale;
+		double rSmallUnit = rSmall / scale;
+		return new GeometryCache.Key(
+				rBigUnit, rSmallUnit, lambda, 
+				calculateDeltaPhi(rBigUnit, rSmallUnit), phiFrom, phiTo);
+	}
 
-		if (logger.isDebugEnabled()) logger.debug("growing start by " + extension + " elements"); //$NON-NLS-1$ //$NON-NLS-2$
+	/**
+	 * Publishes the current state to the readers. The points of the 
+	 * published range must not be modified afterwards. This method must be
+	 * called with the lock on this FigureModel instance.
+	 */
+	private void publish() {
+		snapshot = new FigureSnapshot(
+				(compactPoints!=null) ? null : points.getView(), compactPoints, 
+				startIndex, endIndex, generation, phiMin, phiMax, spiroMath);
+	}
 
-		int [] tmpxi = new int[newsize];
-		int [] tmpyi = new int[newsize];
-		float [] tmpxf = new float[newsize];
-		float [] tmpyf = new float[newsize];
+	/**
+	 * Replaces the points by their compact form (see {@link CompactPoints}) 
+	 * and releases the storage. This is meant for figures which are not 
+	 * extended for a while. The coordinates are rounded to 
+	 * {@link CompactPoints#QUANTUM}. Readers get the points expanded on 
+	 * request, the model expands them when points are added.
+	 */
+	public synchronized void compact() {
+		if (compactPoints!=null || startIndex==endIndex) return;
+
+		compactPoints = CompactPoints.encode(
+				points.getView(), startIndex, endIndex - startIndex);
+		points.release();
+		points = new PointStore();
+		// the pyramid refers to the released store:
+		detailPyramid = null;
+		if (logger.isDebugEnabled()) {
+			logger.debug("compacted " + (endIndex - startIndex) + " points to " +  //$NON-NLS-1$ //$NON-NLS-2$
+					compactPoints.getByteCount() + " bytes"); //$NON-NLS-1$
+		}
+		publish();
+	}
 
-		System.arraycopy(xAryInt, startIndex, tmpxi, extension + startIndex, endIndex - startIndex);
-		System.arraycopy(yAryInt, startIndex, tmpyi, extension + startIndex, endIndex - startIndex);
-		System.arraycopy(xAry, startIndex, tmpxf, extension + startIndex, endIndex - startIndex);
-		System.arraycopy(yAry, startIndex, tmpyf, extension + startIndex, endIndex - startIndex);
+	/**
+	 * Expands compacted points into the storage again. The indexes of the
+	 * points do not change.
+	 */
+	public synchronized void expand() {
+		if (compactPoints==null) return;
 
-		startIndex += extension;
-		endIndex += extension;
-		xAryInt = tmpxi;
-		yAryInt = tmpyi;
-		xAry = tmpxf;
-		yAry = tmpyf;
-		if (drawnStartIndex>=0) {
-			drawnStartIndex += extension;
-			drawnEndIndex += extension;
-		}
+		compactPoints.expandInto(points);
+		compactPoints = null;
+		publish();
+	}
+
+	/**
+	 * @return	Returns true, if the points are compacted.
+	 */
+	public synchronized boolean isCompact() {
+		return compactPoints!=null;
 	}
 
 	/**
+	 * Returns the current state of the model. This method does not lock, 
+	 * so it may be called while another thread is adding points. The 
+	 * snapshot does not change, newer states are returned by the next call.
 	 * 
+	 * @return	Returns the latest published snapshot.
 	 */
-	private void growEnd() {
-		int extension = xAryInt.length / 4;
-		int newsize = xAryInt.length + extension;
+	public FigureSnapshot getSnapshot() {
+		return snapshot;
+	}
 
-		if (logger.isDebugEnabled()) logger.debug("growing end by " + extension + " elements"); //$NON-NLS-1$ //$NON-NLS-2$
+	/**
+	 * Reserves the directory of the storage for the predicted number of 
+	 * points of the full figure. This method must only be called, if the 
+	 * model does not contain any points. The storage is reserved after 
+	 * the current index, if the points are going to be appended, otherwise 
+	 * before it.
+	 * 
+	 * @param toEnd
+	 */
+	private void preallocate(boolean toEnd) {
+		if (toEnd) {
+			points.ensureRange(startIndex, startIndex + predictedPointCount);
+		} else {
+			points.ensureRange(startIndex - predictedPointCount, startIndex);
+		}
+	}
 
-		int [] tmpxi = new int[newsize];
-		int [] tmpyi = new int[newsize];
-		float [] tmpxf = new float[newsize];
-		float [] tmpyf = new float[newsize];
+	/**
+	 * @param rBig
+	 * @param rSmall
+	 * @return	Returns the largest angle step for the given radii. This is 
+	 * 			DELTA_PHI unless the figure would exceed the maximum number 
+	 * 			of points. In that case the figure is downsampled.
+	 */
+	private static double calculateMaxStep(double rBig, double rSmall) {
+		int count = Util.calculatePointCount((int)rBig, (int)rSmall, DELTA_PHI);
+		if (count<=maxPointCount) {
+			return DELTA_PHI;
+		}
+		return Util.calculateRounds((int)rBig, (int)rSmall) * Math.PI * 2 / (maxPointCount - 1);
+	}
 
-		System.arraycopy(xAryInt, startIndex, tmpxi, startIndex, endIndex - startIndex);
-		System.arraycopy(yAryInt, startIndex, tmpyi, startIndex, endIndex - startIndex);
-		System.arraycopy(xAry, startIndex, tmpxf, startIndex, endIndex - startIndex);
-		System.arraycopy(yAry, startIndex, tmpyf, startIndex, endIndex - startIndex);
+	/**
+	 * @param rBig
+	 * @param rSmall
+	 * @return	Returns the angle step a FigureModel uses for the given radii.
+	 */
+	private static double calculateDeltaPhi(double rBig, double rSmall) {
+		double maxStep = calculateMaxStep(rBig, rSmall);
+		if (LobeTable.isApplicable(rBig, rSmall)) {
+			return LobeTable.calculateDeltaPhi((int)rBig, (int)rSmall, maxStep);
+		}
+		return maxStep;
+	}
 
-		xAryInt = tmpxi;
-		yAryInt = tmpyi;
-		xAry = tmpxf;
-		yAry = tmpyf;
+	/**
+	 * Predicts the number of points of a full figure with the given radii.
+	 * A FigureModel which is filled to the full figure in one go contains
+	 * exactly this number of points (with the fixed step sampling). 
+	 * Interactive filling adds a point for every cursor position.
+	 * 
+	 * @param rBig		The radius of the outer gear (model coordinates).
+	 * @param rSmall	The radius of the inner gear (model coordinates).
+	 * @return	Returns the number of points.
+	 */
+	public static int predictPointCount(double rBig, double rSmall) {
+		return Util.calculatePointCount(
+				(int)rBig, (int)rSmall, calculateDeltaPhi(rBig, rSmall));
 	}
 
 	/**
-	 * Access this function with a synchronized block locking on this 
-	 * FigureModel instance!
-	 *  
-	 * @return	Returns the x coordinates of the figures points.
+	 * @param rBig		The radius of the outer gear (model coordinates).
+	 * @param rSmall	The radius of the inner gear (model coordinates).
+	 * @return	Returns the number of bytes needed for the points of a 
+	 * 			full figure with the given radii.
+	 * @see #predictPointCount(double, double)
 	 */
-	public int[] getPointsX() {
-		int [] tmp = new int[endIndex - startIndex];
-		System.arraycopy(xAryInt, startIndex, tmp, 0, endIndex - startIndex);
-		return tmp;
+	public static long predictByteCount(double rBig, double rSmall) {
+		return (long)predictPointCount(rBig, rSmall) * BYTES_PER_POINT;
 	}
 
 	/**
-	 * Access this function with a synchronized block locking on this 
-	 * FigureModel instance!
+	 * Calculates the points on the grid indexes <code>kFrom + i*kStep</code>
+	 * and one final point at phiTo into the scratch arrays. If the model 
+	 * does not contain any points yet, the point at phiFrom is calculated 
+	 * first.
 	 * 
-	 * @return	Returns the y coordinates of the figures points.
+	 * @param phiFrom
+	 * @param kFrom
+	 * @param kStep
+	 * @param count
+	 * @param phiTo
+	 * @return	Returns the number of points calculated.
 	 */
-	public int[] getPointsY() {
-		int [] tmp = new int[endIndex - startIndex];
-		System.arraycopy(yAryInt, startIndex, tmp, 0, endIndex - startIndex);
-		return tmp;
+	private int calculateGridPoints(double phiFrom, long kFrom, int kStep, long count, double phiTo) {
+		int first = (startIndex==endIndex) ? 1 : 0;
+		int n = (int) Math.max(count, 0);
+		if (xTmp==null || xTmp.length<first + n + 1) {
+			growScratch(first + n + 1);
+		}
+		if (first>0) {
+			spiroMath.calculateFigurePoints(phiFrom, 0.0, 1, xTmp, yTmp, 0);
+		}
+		if (n>=parallelThreshold) {
+			if (logger.isDebugEnabled()) logger.debug("calculating " + n + " points in parallel"); //$NON-NLS-1$ //$NON-NLS-2$
+			getForkJoinPool().invoke(new GridPointTask(
+					spiroMath, lobeTable, deltaPhi, 
+					kFrom, kStep, n, xTmp, yTmp, first));
+		} else {
+			calculateGridRange(
+					spiroMath, lobeTable, deltaPhi, 
+					kFrom, kStep, n, xTmp, yTmp, first);
+		}
+		spiroMath.calculateFigurePoints(phiTo, 0.0, 1, xTmp, yTmp, first + n);
+		return first + n + 1;
 	}
 
 	/**
-	 * Access this function with a synchronized block locking on this 
-	 * FigureModel instance!
-	 * 
-	 * @return	Returns true, if new data is there at the start.
+	 * Calculates the points on the grid indexes <code>kFrom + i*kStep</code>
+	 * with the LobeTable if there is one, otherwise with the SpiroMath 
+	 * instance.
 	 */
-	public boolean isDirtyAtStart() {
-		return drawnStartIndex!=startIndex;
+	static void calculateGridRange(
+			SpiroMath sm, LobeTable lt, double deltaPhi,
+			long kFrom, int kStep, int count, 
+			double [] xOut, double [] yOut, int offset) {
+		if (lt!=null) {
+			lt.calculateGridPoints(kFrom, kStep, count, xOut, yOut, offset);
+		} else {
+			sm.calculateFigurePoints(
+					kFrom*deltaPhi, kStep*deltaPhi, count, xOut, yOut, offset);
+		}
 	}
 
 	/**
-	 * Access this function with a synchronized block locking on this 
-	 * FigureModel instance!
-	 * 
-	 * @return	Returns true, if new data is there at the end.
+	 * Calculates a range of grid points by splitting it into chunks which
+	 * are calculated in parallel. Every chunk uses its own SpiroMath 
+	 * instance and writes into its own part of the output arrays.
 	 */
-	public boolean isDirtyAtEnd() {
-		return drawnEndIndex!=endIndex;
+	static class GridPointTask extends RecursiveAction {
+		/** */
+		private static final long serialVersionUID = 1L;
+
+		final SpiroMath spiroMath;
+		final LobeTable lobeTable;
+		final double deltaPhi;
+		final long kFrom;
+		final int kStep;
+		final int count;
+		final double [] xOut;
+		final double [] yOut;
+		final int offset;
+
+		GridPointTask(
+				SpiroMath spiroMath, LobeTable lobeTable, double deltaPhi, 
+				long kFrom, int kStep, int count, 
+				double [] xOut, double [] yOut, int offset) {
+			super();
+			this.spiroMath = spiroMath;
+			this.lobeTable = lobeTable;
+			this.deltaPhi = deltaPhi;
+			this.kFrom = kFrom;
+			this.kStep = kStep;
+			this.count = count;
+			this.xOut = xOut;
+			this.yOut = yOut;
+			this.offset = offset;
+		}
+
+		@Override
+		protected void compute() {
+			if (count<=PARALLEL_CHUNK_SIZE) {
+				calculateGridRange(
+						new SpiroMath(spiroMath), lobeTable, deltaPhi, 
+						kFrom, kStep, count, xOut, yOut, offset);
+				return;
+			}
+			int half = count / 2;
+			invokeAll(
+					new GridPointTask(
+							spiroMath, lobeTable, deltaPhi, 
+							kFrom, kStep, half, 
+							xOut, yOut, offset),
+					new GridPointTask(
+							spiroMath, lobeTable, deltaPhi, 
+							kFrom + (long)half*kStep, kStep, count - half, 
+							xOut, yOut, offset + half));
+		}
+	}
+
+	/**
+	 * @return	Returns the pool for the parallel calculation of points.
+	 */
+	private static ForkJoinPool getForkJoinPool() {
+		return ForkJoinPool.commonPool();
 	}
 
 	/**
-	 * Access this function with a synchronized block locking on this 
-	 * FigureModel instance!
-	 * @return	Returns the x data which has not yet been drawn.
+	 * Calculates the points from phiFrom towards phiTo into the scratch 
+	 * arrays. The steps are chosen by the curvature, so that no chord 
+	 * deviates more than adaptiveTolerance from the curve. The last point 
+	 * is exactly at phiTo. The point at phiFrom is only calculated, if the
+	 * model does not contain any points yet (otherwise it is stored 
+	 * already).
+	 * 
+	 * @param phiFrom
+	 * @param phiTo
+	 * @return	Returns the number of points calculated.
 	 */
-	public int[] getDirtyAtStartPointsX() {
-		if (drawnStartIndex<0) {
-			logger.debug("not drawn yet, returning nothing"); //$NON-NLS-1$
-			return new int[0];
+	private int calculateAdaptivePoints(double phiFrom, double phiTo) {
+		double direction = phiTo<phiFrom ? -1.0 : 1.0;
+		double minStep = deltaPhi * ADAPTIVE_MIN_STEP_FACTOR;
+		double maxStep = deltaPhi * ADAPTIVE_MAX_STEP_FACTOR;
+		int count = 0;
+		double phiTmp = phiFrom;
+		if (startIndex!=endIndex) {
+			phiTmp = nextAdaptivePhi(phiTmp, phiTo, direction, minStep, maxStep);
 		}
-		if (drawnStartIndex==startIndex) {
-			logger.debug("no new data, returning nothing"); //$NON-NLS-1$
-			return new int[0];
+		while (true) {
+			if (xTmp==null || xTmp.length<=count) {
+				growScratch(count + 1);
+			}
+			spiroMath.calculateFigurePoints(phiTmp, 0.0, 1, xTmp, yTmp, count);
+			count++;
+			if (phiTmp==phiTo) break;
+			phiTmp = nextAdaptivePhi(phiTmp, phiTo, direction, minStep, maxStep);
 		}
-		int count = drawnStartIndex - startIndex + 1;
-		if (endIndex==drawnStartIndex) count--;
-		if (logger.isDebugEnabled()) 
-			logger.debug("returning " + count + " elements, si,ei,dsi,dei=" + //$NON-NLS-1$ //$NON-NLS-2$
-				startIndex + "," + endIndex + "," + drawnStartIndex + "," + drawnEndIndex); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
-		int [] tmp = new int[count];
-		System.arraycopy(xAryInt, startIndex, tmp, 0, count);
-		return tmp;
+		return count;
 	}
 
 	/**
-	 * Access this function with a synchronized block locking on this 
-	 * FigureModel instance!
-	 * @return	Returns the x data which has not yet been drawn.
+	 * @param phi
+	 * @param phiTo
+	 * @param direction
+	 * @param minStep
+	 * @param maxStep
+	 * @return	Returns the angle of the point after phi, which is phiTo 
+	 * 			at the latest.
 	 */
-	public int[] getDirtyAtStartPointsY() {
-		if (drawnStartIndex<0) {
-			logger.debug("not drawn yet, returning nothing"); //$NON-NLS-1$
-			return new int[0];
+	private double nextAdaptivePhi(
+			double phi, double phiTo, double direction, 
+			double minStep, double maxStep) {
+		double next = phi + direction * spiroMath.calculateAdaptiveStep(
+				phi, adaptiveTolerance, minStep, maxStep);
+		if ((phiTo - next) * direction <= 0.0) {
+			next = phiTo;
 		}
-		if (drawnStartIndex==startIndex) {
-			logger.debug("no new data, returning nothing"); //$NON-NLS-1$
-			return new int[0];
+		return next;
+	}
+
+	/**
+	 * @param minSize
+	 */
+	private void growScratch(int minSize) {
+		int newsize = Math.max(minSize, xTmp==null ? 0 : xTmp.length * 2);
+		double [] tmpx = new double[newsize];
+		double [] tmpy = new double[newsize];
+		if (xTmp!=null) {
+			System.arraycopy(xTmp, 0, tmpx, 0, xTmp.length);
+			System.arraycopy(yTmp, 0, tmpy, 0, yTmp.length);
 		}
-		int count = drawnStartIndex - startIndex + 1;
-		if (endIndex==drawnStartIndex) count--;
-		if (logger.isDebugEnabled()) 
-			logger.debug("returning " + count + " elements, si,ei,dsi,dei=" + //$NON-NLS-1$ //$NON-NLS-2$
-				startIndex + "," + endIndex + "," + drawnStartIndex + "," + drawnEndIndex); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
-		int [] tmp = new int[count];
-		System.arraycopy(yAryInt, startIndex, tmp, 0, count);
-		return tmp;
+		xTmp = tmpx;
+		yTmp = tmpy;
 	}
 
 	/**
-	 * Access this function with a synchronized block locking on this 
-	 * FigureModel instance!
-	 * @return	Returns the x data which has not yet been drawn.
+	 * Appends the first count points of the scratch arrays to the end.
+	 * 
+	 * @param count
 	 */
-	public int[] getDirtyAtEndPointsX() {
-		if (drawnEndIndex<0) {
-			logger.debug("not drawn yet, returning full"); //$NON-NLS-1$
-			return getPointsX();
+	private void appendPoints(int count) {
+		points.ensureRange(endIndex, endIndex + count);
+		for (int i=0; i<count; i++) {
+			points.setPoint(endIndex + i, (float) xTmp[i], (float) yTmp[i]);
 		}
-		if (drawnEndIndex==endIndex) {
-			logger.debug("no new data, returning nothing"); //$NON-NLS-1$
-			return new int[0];
+		endIndex += count;
+	}
+
+	/**
+	 * Prepends the first count points of the scratch arrays to the start. 
+	 * The scratch arrays are expected to run away from the current start,
+	 * so the first scratch point ends up next to the old start.
+	 * 
+	 * @param count
+	 */
+	private void prependPoints(int count) {
+		points.ensureRange(startIndex - count, startIndex);
+		for (int i=0; i<count; i++) {
+			points.setPoint(startIndex - 1 - i, (float) xTmp[i], (float) yTmp[i]);
 		}
-		int count = endIndex - drawnEndIndex;
-		// if (endIndex==startIndex) count--;
-		if (logger.isDebugEnabled()) 
-			logger.debug("returning " + count + " elements, si,ei,dsi,dei=" + //$NON-NLS-1$ //$NON-NLS-2$
-				startIndex + "," + endIndex + "," + drawnStartIndex + "," + drawnEndIndex); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
-		int [] tmp = new int[count];
-		System.arraycopy(xAryInt, endIndex - count, tmp, 0, count);
-		return tmp;
+		startIndex -= count;
 	}
 
 	/**
-	 * Access this function with a synchronized block locking on this 
-	 * FigureModel instance!
-	 * @return	Returns the x data which has not yet been drawn.
+	 * Creates a path of cubic Bezier segments for the angle interval of 
+	 * this model. The control points are derived from the analytic 
+	 * derivatives at the segment ends (Hermite interpolation). The error 
+	 * of a Hermite segment with the angle span h is at most 
+	 * h^4/384 times the bound of the fourth derivative, which determines 
+	 * the number of segments.
+	 * 
+	 * @param tolerance	The allowed deviation from the curve in model pixels.
+	 * @return	Returns the path, which is empty if there are no points.
 	 */
-	public int[] getDirtyAtEndPointsY() {
-		if (drawnEndIndex<0) {
-			logger.debug("not drawn yet, returning full"); //$NON-NLS-1$
-			return getPointsY();
+	public Path2D createBezierPath(double tolerance) {
+		return createBezierPath(getSnapshot(), tolerance);
+	}
+
+	/**
+	 * Creates a path of cubic Bezier segments for the angle interval of 
+	 * the snapshot. See {@link #createBezierPath(double)}.
+	 * 
+	 * @param snapshot	The state of the model.
+	 * @param tolerance	The allowed deviation from the curve in model pixels.
+	 * @return	Returns the path, which is empty if there are no points.
+	 */
+	public static Path2D createBezierPath(FigureSnapshot snapshot, double tolerance) {
+		Path2D.Double path = new Path2D.Double();
+		if (snapshot.getPointCount()==0) return path;
+
+		SpiroMath spiroMath = snapshot.createSpiroMath();
+		double phiMin = snapshot.getPhiMin();
+		double phiMax = snapshot.getPhiMax();
+		double span = phiMax - phiMin;
+		double maxStep = Math.pow(
+				384.0 * tolerance / spiroMath.getFourthDerivativeBound(), 0.25);
+		int count = Math.max(1, (int) Math.ceil(span / maxStep));
+		double h = span / count;
+
+		spiroMath.calculate(phiMin);
+		spiroMath.calculateDerivative(phiMin);
+		double x0 = spiroMath.getFigureX();
+		double y0 = spiroMath.getFigureY();
+		double dx0 = spiroMath.getFigureDX() * h / 3;
+		double dy0 = spiroMath.getFigureDY() * h / 3;
+		path.moveTo(x0, y0);
+		for (int i=1; i<=count; i++) {
+			double phi = (i==count) ? phiMax : phiMin + i*h;
+			spiroMath.calculate(phi);
+			spiroMath.calculateDerivative(phi);
+			double x1 = spiroMath.getFigureX();
+			double y1 = spiroMath.getFigureY();
+			double dx1 = spiroMath.getFigureDX() * h / 3;
+			double dy1 = spiroMath.getFigureDY() * h / 3;
+			path.curveTo(x0 + dx0, y0 + dy0, x1 - dx1, y1 - dy1, x1, y1);
+			x0 = x1;
+			y0 = y1;
+			dx0 = dx1;
+			dy0 = dy1;
 		}
-		if (drawnEndIndex==endIndex) {
-			logger.debug("no new data, returning nothing"); //$NON-NLS-1$
-			return new int[0];
+		return path;
+	}
+
+	/**
+	 * Replaces the storage by an empty one. The old store is released, its
+	 * off-heap blocks are returned to the budget when the readers have 
+	 * dropped their views.
+	 */
+	private void replaceStore() {
+		if (points!=null) {
+			points.release();
 		}
-		int count = endIndex - drawnEndIndex;
-		// if (endIndex==startIndex) count--;
-		if (logger.isDebugEnabled()) 
-			logger.debug("returning " + count + " elements, si,ei,dsi,dei=" + //$NON-NLS-1$ //$NON-NLS-2$
-				startIndex + "," + endIndex + "," + drawnStartIndex + "," + drawnEndIndex); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
-		int [] tmp = new int[count];
-		System.arraycopy(yAryInt, endIndex - count, tmp, 0, count);
-		return tmp;
+		points = new PointStore();
+		compactPoints = null;
+		generation++;
 	}
 
 	/**
-	 * Access this function with a synchronized block locking on this 
-	 * FigureModel instance!
+	 * @return	Returns the x coordinates of the figures points.
 	 */
-	public void markDrawn() {
-		drawnStartIndex = startIndex;
-		drawnEndIndex = endIndex;
+	public int[] getPointsX() {
+		FigureSnapshot snap = getSnapshot();
+		return snap.getPoints().copyCoordinates(
+				snap.getStartIndex(), snap.getPointCount(), 0);
 	}
-	
+
+	/**
+	 * @return	Returns the y coordinates of the figures points.
+	 */
+	public int[] getPointsY() {
+		FigureSnapshot snap = getSnapshot();
+		return snap.getPoints().copyCoordinates(
+				snap.getStartIndex(), snap.getPointCount(), 1);
+	}
+
+	/**
+	 * Fills the view with all points of the model. The points are not 
+	 * copied and the view stays valid after the model has been changed.
+	 * 
+	 * @param range	The view to fill.
+	 */
+	public void getPoints(PointRange range) {
+		FigureSnapshot snap = getSnapshot();
+		snap.getRange(snap.getStartIndex(), snap.getPointCount(), range);
+	}
+
+	/**
+	 * Fills the view with the points of the model, simplified for the 
+	 * given tolerance. See {@link #getPoints(FigureSnapshot, PointRange, double)}.
+	 * 
+	 * @param range		The view to fill.
+	 * @param tolerance	The allowed deviation in model pixels.
+	 */
+	public void getPoints(PointRange range, double tolerance) {
+		getPoints(getSnapshot(), range, tolerance);
+	}
+
+	/**
+	 * Fills the view with the points of the snapshot, simplified for the 
+	 * given tolerance. The simplified levels are created on the first 
+	 * request and kept for the points of the snapshot. Points which have 
+	 * been added at the ends since are simplified on their own and joined
+	 * to the kept levels. If the tolerance is below the error of the finest
+	 * level, all points are returned.
+	 * 
+	 * @param snap		The state of this model.
+	 * @param range		The view to fill.
+	 * @param tolerance	The allowed deviation in model pixels.
+	 */
+	public void getPoints(FigureSnapshot snap, PointRange range, double tolerance) {
+		int level = DetailPyramid.getLevelFor(tolerance);
+		if (level<0) {
+			snap.getRange(snap.getStartIndex(), snap.getPointCount(), range);
+			return;
+		}
+		DetailPyramid pyramid = detailPyramid;
+		if (pyramid==null || !pyramid.isValidFor(snap)) {
+			// the levels are extended by the points added since:
+			pyramid = new DetailPyramid(snap, pyramid);
+			detailPyramid = pyramid;
+		}
+		pyramid.getLevel(level, range);
+	}
+
 	/**
 	 * Clears the data of the FigureModel.
-	 * Note: the storage is not actually cleared, only the reference indexes
-	 * are reset to mark an empty array. If memory is truly precious, change 
-	 * the source in order to provide a full clean method.
+	 * Note: the blocks of the storage are dropped, because ranges which 
+	 * have been handed out must not change. Off-heap blocks are returned
+	 * to the budget when no view refers to them anymore.
 	 */
 	public synchronized void clear() {
 		logger.debug("clear called (clearing data!)"); //$NON-NLS-1$
-		// lets keep the array, its enough to put the index values to the same
-		// cell:
-		startIndex = xAryInt.length / 2;
-		endIndex = startIndex;
-
-		drawnStartIndex = -1;
-		drawnEndIndex = -1;
+		replaceStore();
+		startIndex = 0;
+		endIndex = 0;
+		centerTrack = null;
 
 		// FIXME: we need the phiStart for the correct reset here!?
 		phiMin = 0.0;
 		phiMax = 0.0;
+		publish();
 	}
 
 	/**
-	 * Clears the drawn status in the model. Actually this method resets the
-	 * markers which indicate which points have been drawn already.
+	 * @return the chord tolerance for adaptive sampling in model pixels.
+	 */
+	public double getAdaptiveTolerance() {
+		return adaptiveTolerance;
+	}
+
+	/**
+	 * Sets the chord tolerance for adaptive sampling. With a tolerance 
+	 * greater than zero the points are placed by the curvature of the 
+	 * figure, so that flat arcs get few points and tight loops get many. 
+	 * A tolerance of zero selects the sampling with the fixed step.
+	 * The setting affects points which are added afterwards.
+	 * 
+	 * @param adaptiveTolerance the tolerance in model pixels
+	 */
+	public synchronized void setAdaptiveTolerance(double adaptiveTolerance) {
+		this.adaptiveTolerance = adaptiveTolerance;
+	}
+
+	/**
+	 * @param name
+	 * @param defaultValue
+	 * @return	Returns the value of the system property or the default, 
+	 * 			if it is not defined or not a number.
+	 */
+	private static double getDoubleProperty(String name, double defaultValue) {
+		String value = System.getProperty(name);
+		if (value==null) return defaultValue;
+		try {
+			return Double.parseDouble(value);
+		} catch (NumberFormatException e) {
+			logger.warn("invalid value for " + name + ": " + value); //$NON-NLS-1$ //$NON-NLS-2$
+			return defaultValue;
+		}
+	}
+
+	/**
+	 * @return the chord tolerance used by newly created FigureModels.
+	 */
+	public static double getDefaultAdaptiveTolerance() {
+		return defaultAdaptiveTolerance;
+	}
+
+	/**
+	 * Sets the chord tolerance used by newly created FigureModels. The 
+	 * default can be set with the VM option 
+	 * <code>-Dde.admadic.spiromat.model.adaptiveTolerance=pixels</code>, 
+	 * it is zero (fixed step sampling) otherwise.
+	 * 
+	 * @param tolerance the chord tolerance used by newly created 
+	 * 			FigureModels. (See {@link #setAdaptiveTolerance(double)})
+	 */
+	public static void setDefaultAdaptiveTolerance(double tolerance) {
+		defaultAdaptiveTolerance = tolerance;
+	}
+
+	/**
+	 * @return the mode used by FigureModels for calculating runs of points.
+	 */
+	public static SpiroMath.GenerationMode getGenerationMode() {
+		return generationMode;
+	}
+
+	/**
+	 * Sets the mode used for calculating runs of points. The setting 
+	 * affects FigureModels when their parameters are set the next time.
+	 * 
+	 * @param mode the mode to use
+	 */
+	public static void setGenerationMode(SpiroMath.GenerationMode mode) {
+		generationMode = mode;
+	}
+
+	/**
+	 * @return the maximum number of points of a full figure.
+	 */
+	public static int getMaxPointCount() {
+		return maxPointCount;
+	}
+
+	/**
+	 * Sets the maximum number of points of a full figure. FigureModels 
+	 * for figures with more points sample them with a larger step, so
+	 * that the limit is kept. The setting affects FigureModels when their 
+	 * parameters are set the next time.
+	 * 
+	 * @param count the number of points
+	 */
+	public static void setMaxPointCount(int count) {
+		maxPointCount = count;
+	}
+
+	/**
+	 * @return the number of grid points from which on the points are 
+	 * 			calculated in parallel.
+	 */
+	public static int getParallelThreshold() {
+		return parallelThreshold;
+	}
+
+	/**
+	 * Sets the number of grid points from which on a FigureModel splits
+	 * the calculation into chunks, which are calculated on the common 
+	 * ForkJoinPool. Use Integer.MAX_VALUE to turn the parallel calculation
+	 * off.
+	 * 
+	 * @param threshold the number of points
 	 */
-	public void clearDrawn() {
-		logger.debug("clearDrawn called"); //$NON-NLS-1$
-		drawnStartIndex = -1;
-		drawnEndIndex = -1;
+	public static void setParallelThreshold(int threshold) {
+		parallelThreshold = threshold;
 	}
 }
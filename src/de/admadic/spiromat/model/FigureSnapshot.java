@@ -0,0 +1,171 @@
+/**
+ *
+ * #license-begin#
+ * MIT License
+ *
+ * Copyright (c) 2005 - 2022 admaDIC GbR - http://www.admadic.de/
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * #license-end#
+ *
+ * $Id$ 
+ */
+package de.admadic.spiromat.model;
+
+import de.admadic.spiromat.math.SpiroMath;
+
+/**
+ * Provides an immutable state of a FigureModel. The FigureModel publishes 
+ * a new snapshot after every change, so readers (like the FigureViews) 
+ * never need to lock the model. The points of a snapshot are never 
+ * modified, the model only writes outside of the published range or into 
+ * a new store.
+ * 
+ * The generation changes whenever the points are replaced (for instance 
+ * with other parameters), otherwise the ranges of the snapshots of one 
+ * generation only grow.
+ * 
+ * If the model has been compacted, the snapshot contains the compact form
+ * of the points, which is expanded whenever the points are requested.
+ * 
+ * @author Rainer Schwarze
+ */
+public class FigureSnapshot {
+	final private PointStoreView points;
+	final private CompactPoints compactPoints;
+	final private int startIndex;
+	final private int endIndex;
+	final private int generation;
+	final private double phiMin;
+	final private double phiMax;
+	final private SpiroMath spiroMath;
+
+	/**
+	 * @param points		The view of the points or null, if the points 
+	 * 						are compacted.
+	 * @param compactPoints	The compacted points or null.
+	 * @param startIndex
+	 * @param endIndex
+	 * @param generation
+	 * @param phiMin
+	 * @param phiMax
+	 * @param spiroMath	The calculation instance of the model. It must not 
+	 * 					be used for calculations, only for copies.
+	 */
+	FigureSnapshot(
+			PointStoreView points, CompactPoints compactPoints, 
+			int startIndex, int endIndex, int generation,
+			double phiMin, double phiMax, SpiroMath spiroMath) {
+		super();
+		this.points = points;
+		this.compactPoints = compactPoints;
+		this.startIndex = startIndex;
+		this.endIndex = endIndex;
+		this.generation = generation;
+		this.phiMin = phiMin;
+		this.phiMax = phiMax;
+		this.spiroMath = spiroMath;
+	}
+
+	/**
+	 * If the points are compacted, they are expanded on each call, so the
+	 * view should be kept as long as it is used.
+	 * 
+	 * @return	Returns the view of the points.
+	 */
+	public PointStoreView getPoints() {
+		if (points==null) {
+			return compactPoints.expand();
+		}
+		return points;
+	}
+
+	/**
+	 * @return	Returns true, if the points are compacted.
+	 */
+	public boolean isCompact() {
+		return points==null;
+	}
+
+	/**
+	 * @return the index of the first point.
+	 */
+	public int getStartIndex() {
+		return startIndex;
+	}
+
+	/**
+	 * @return the index after the last point.
+	 */
+	public int getEndIndex() {
+		return endIndex;
+	}
+
+	/**
+	 * @return the number of points.
+	 */
+	public int getPointCount() {
+		return endIndex - startIndex;
+	}
+
+	/**
+	 * @return the generation of the points.
+	 */
+	public int getGeneration() {
+		return generation;
+	}
+
+	/**
+	 * @return the angle of the first point.
+	 */
+	public double getPhiMin() {
+		return phiMin;
+	}
+
+	/**
+	 * @return the angle of the last point.
+	 */
+	public double getPhiMax() {
+		return phiMax;
+	}
+
+	/**
+	 * @return	Returns a new calculation instance for the parameters of 
+	 * 			the snapshot.
+	 */
+	public SpiroMath createSpiroMath() {
+		return new SpiroMath(spiroMath);
+	}
+
+	/**
+	 * Fills the view with the points from..from+count-1.
+	 * 
+	 * @param from
+	 * @param count
+	 * @param range
+	 */
+	public void getRange(int from, int count, PointRange range) {
+		if (count==0) {
+			// no need to expand compacted points:
+			range.clear();
+			return;
+		}
+		getPoints().getRange(from, count, range);
+	}
+}
@@ -35,6 +35,7 @@ import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.Serializable;
+import java.lang.ref.SoftReference;
 
 import de.admadic.spiromat.DontObfuscate;
 import de.admadic.spiromat.Globals;
@@ -80,7 +81,11 @@ public class FigureSpec implements Serializable, DontObfuscate {
 	
 	private boolean active;
 
+	// the model of the active figure:
 	transient private FigureModel cachedFigureModel;
+	// the model of an inactive figure, which may be dropped when the 
+	// memory gets low (it is created again when needed):
+	transient private SoftReference<FigureModel> evictableFigureModel;
 	
 	transient private PropertyChangeSupport pcs = new PropertyChangeSupport(this);
 
@@ -275,8 +280,18 @@ public class FigureSpec implements Serializable, DontObfuscate {
 	/**
 	 * @param active the active to set
 	 */
-	public void setActive(boolean active) {
+	public synchronized void setActive(boolean active) {
 		this.active = active;
+		FigureModel fm = peekFigureModel();
+		if (fm==null) return;
+
+		// only the active figure is extended:
+		if (active) {
+			fm.expand();
+		} else {
+			fm.compact();
+		}
+		holdFigureModel(fm);
 	}
 
 	/**
@@ -333,7 +348,7 @@ public class FigureSpec implements Serializable, DontObfuscate {
 	public void setPenHolePos(double penHolePos) {
 		double oldValue = this.penHolePos;
 		this.penHolePos = penHolePos;
-		updateCachedFigureModel(this.outerRadius, this.innerRadius, this.penHolePos);
+		updateCachedFigureModelPenHolePos(this.penHolePos);
 		pcs.firePropertyChange(PROP_PEN_HOLE_POS, oldValue, this.penHolePos);
 	}
 
@@ -356,19 +371,74 @@ public class FigureSpec implements Serializable, DontObfuscate {
 	}
 
 	/**
-	 * If the FigureSpec instance once has created a FigureModel instance
-	 * it is never replaced. FigureView now keeps a reference to the
-	 * FigureModel which is acceptable. However, if the interface changes, 
-	 * a FigureModel needs to be retrieved from FigureSpec everytime one
+	 * This can be used to check a figure before its points are calculated.
+	 * 
+	 * @return	Returns the number of points of the full figure.
+	 * @see FigureModel#predictPointCount(double, double)
+	 */
+	public int getPredictedPointCount() {
+		return FigureModel.predictPointCount(
+				outerRadius * Globals.MAX_RADIUS / 100, 
+				innerRadius * Globals.MAX_RADIUS / 100);
+	}
+
+	/**
+	 * This can be used to check a figure before its points are calculated.
+	 * 
+	 * @return	Returns the number of bytes needed for the points of the 
+	 * 			full figure.
+	 * @see FigureModel#predictByteCount(double, double)
+	 */
+	public long getPredictedByteCount() {
+		return FigureModel.predictByteCount(
+				outerRadius * Globals.MAX_RADIUS / 100, 
+				innerRadius * Globals.MAX_RADIUS / 100);
+	}
+
+	/**
+	 * The FigureModel is created on the first call. The model of the 
+	 * active figure is kept, the model of an inactive figure may be dropped
+	 * by the garbage collector and is created again on the next call. So
+	 * the FigureModel needs to be retrieved from FigureSpec everytime one 
 	 * is needed/used.
 	 * 
 	 * @return the (cached) FigureModel or creates one
 	 */
-	public FigureModel getFigureModel() {
-		if (cachedFigureModel==null) {
-			cachedFigureModel = createFigureModel(this);
+	public synchronized FigureModel getFigureModel() {
+		FigureModel fm = peekFigureModel();
+		if (fm==null) {
+			fm = createFigureModel(this);
+			if (!active) {
+				fm.compact();
+			}
+			holdFigureModel(fm);
+		}
+		return fm;
+	}
+
+	/**
+	 * @return	Returns the FigureModel, if it exists, otherwise null. A
+	 * 			FigureModel is not created.
+	 */
+	public synchronized FigureModel peekFigureModel() {
+		if (cachedFigureModel!=null) return cachedFigureModel;
+		return (evictableFigureModel!=null) ? evictableFigureModel.get() : null;
+	}
+
+	/**
+	 * Keeps the model strongly referenced if this figure is active, 
+	 * otherwise softly.
+	 * 
+	 * @param fm
+	 */
+	private void holdFigureModel(FigureModel fm) {
+		if (active) {
+			cachedFigureModel = fm;
+			evictableFigureModel = null;
+		} else {
+			cachedFigureModel = null;
+			evictableFigureModel = new SoftReference<FigureModel>(fm);
 		}
-		return cachedFigureModel;
 	}
 
 	/**
@@ -376,33 +446,63 @@ public class FigureSpec implements Serializable, DontObfuscate {
 	 * @param innerRadiusArg
 	 * @param penHolePosArg
 	 */
-	private void updateCachedFigureModel(
+	private synchronized void updateCachedFigureModel(
 			int outerRadiusArg, int innerRadiusArg, double penHolePosArg) {
-		if (cachedFigureModel==null) return;
+		FigureModel fm = peekFigureModel();
+		if (fm==null) return;
 
-		cachedFigureModel.setParameters(
+		fm.setParameters(
 				outerRadiusArg * Globals.MAX_RADIUS / 100, 
 				innerRadiusArg * Globals.MAX_RADIUS / 100, 
 				penHolePosArg, 
 				0.0);
 	}
 
+	/**
+	 * Only the pen hole position changes, so the cached FigureModel keeps
+	 * its angle interval and recalculates the points for it.
+	 * 
+	 * @param penHolePosArg
+	 */
+	private synchronized void updateCachedFigureModelPenHolePos(double penHolePosArg) {
+		FigureModel fm = peekFigureModel();
+		if (fm==null) return;
+
+		fm.setLambda(penHolePosArg);
+	}
+
 	/**
 	 * @param cursorAngleArg
 	 */
-	private void updateCachedFigureModel(double cursorAngleArg) {
-		if (cachedFigureModel==null) return;
+	private synchronized void updateCachedFigureModel(double cursorAngleArg) {
+		FigureModel fm = peekFigureModel();
+		if (fm==null) return;
 
-		cachedFigureModel.addPoints(cursorAngleArg);
+		fm.addPoints(cursorAngleArg);
 	}
 
 	/**
 	 * 
 	 */
-	private void clearCachedFigureModel() {
-		if (cachedFigureModel==null) return;
+	private synchronized void clearCachedFigureModel() {
+		FigureModel fm = peekFigureModel();
+		if (fm==null) return;
+
+		fm.clear();
+	}
+
+	/**
+	 * Releases the storage of the cached FigureModel and drops the model. 
+	 * Off-heap memory is returned when no view refers to it anymore. A new
+	 * model is created on the next call of getFigureModel.
+	 */
+	public synchronized void releaseFigureModel() {
+		FigureModel fm = peekFigureModel();
+		if (fm==null) return;
 
-		cachedFigureModel.clear();
+		fm.clear();
+		cachedFigureModel = null;
+		evictableFigureModel = null;
 	}
 
 	/**
@@ -414,8 +514,7 @@ public class FigureSpec implements Serializable, DontObfuscate {
 				figureSpec.getOuterRadius() * Globals.MAX_RADIUS / 100,
 				figureSpec.getInnerRadius() * Globals.MAX_RADIUS / 100,
 				figureSpec.getPenHolePos());
-		fm.addPoints(figureSpec.getStartAngle());
-		fm.addPoints(figureSpec.getEndAngle());
+		fm.addInterval(figureSpec.getStartAngle(), figureSpec.getEndAngle());
 		return fm;
 	}
 
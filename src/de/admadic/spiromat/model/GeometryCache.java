@@ -0,0 +1,347 @@
+/**
+ *
+ * #license-begin#
+ * MIT License
+ *
+ * Copyright (c) 2005 - 2022 admaDIC GbR - http://www.admadic.de/
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * #license-end#
+ *
+ * $Id$ 
+ */
+package de.admadic.spiromat.model;
+
+import java.lang.ref.SoftReference;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import de.admadic.spiromat.log.Logger;
+import de.admadic.spiromat.math.Util;
+
+/**
+ * Provides a process wide cache of the points of figures, so figures with 
+ * the same parameters (like after loading a document, for the exports or 
+ * for figures which are recreated) do not need to be calculated again.
+ * 
+ * Figures whose radii have the same ratio are the same curve at different
+ * scales (like 96/60 and 48/30). The keys are therefore based on the radii 
+ * divided by their greatest common divisor (the scale), so all figures of
+ * such a family share one entry. The points of an entry are scaled to the 
+ * requesting figure.
+ * 
+ * The entries contain copies of the points, so they do not depend on the 
+ * storage of the FigureModel which has calculated them. The least recently
+ * used entries are dropped when the byte budget is exceeded. The entries 
+ * are only softly referenced, so the garbage collector may drop them as 
+ * well when the memory gets low.
+ * 
+ * The budget can be set with the system property 
+ * <code>de.admadic.spiromat.model.geometryCacheBudget</code> (in bytes).
+ * A budget of 0 disables the cache.
+ * 
+ * @author Rainer Schwarze
+ */
+public class GeometryCache {
+	final static Logger logger = Logger.getLogger(GeometryCache.class);
+
+	private static final String BUDGET_PROPNAME = "de.admadic.spiromat.model.geometryCacheBudget"; //$NON-NLS-1$
+	// the maximum number of bytes of the cached points:
+	private static long budget = Long.getLong(BUDGET_PROPNAME, 32L << 20).longValue();
+	// the number of bytes of the entries in the cache:
+	private static long byteCount = 0;
+	private static long hitCount = 0;
+	private static long missCount = 0;
+
+	// the entries in the order of their last use (the eldest first):
+	private static final LinkedHashMap<Key, Slot> slots = 
+		new LinkedHashMap<Key, Slot>(16, 0.75f, true);
+
+	/**
+	 * Identifies the points of a figure. The points depend on the radii
+	 * reduced by the scale, the pen hole position, the angle step and the 
+	 * angle interval.
+	 */
+	public static class Key {
+		final private double rBig;
+		final private double rSmall;
+		final private double lambda;
+		final private double deltaPhi;
+		final private double phiMin;
+		final private double phiMax;
+
+		/**
+		 * @param rBig		The outer radius divided by the scale.
+		 * @param rSmall	The inner radius divided by the scale.
+		 * @param lambda
+		 * @param deltaPhi	The angle step for the reduced radii.
+		 * @param phiMin
+		 * @param phiMax
+		 */
+		public Key(
+				double rBig, double rSmall, double lambda, 
+				double deltaPhi, double phiMin, double phiMax) {
+			super();
+			this.rBig = rBig;
+			this.rSmall = rSmall;
+			this.lambda = lambda;
+			this.deltaPhi = deltaPhi;
+			this.phiMin = phiMin;
+			this.phiMax = phiMax;
+		}
+
+		/**
+		 * @return	Returns the hash code.
+		 * @see java.lang.Object#hashCode()
+		 */
+		@Override
+		public int hashCode() {
+			long h = Double.doubleToLongBits(rBig);
+			h = 31*h + Double.doubleToLongBits(rSmall);
+			h = 31*h + Double.doubleToLongBits(lambda);
+			h = 31*h + Double.doubleToLongBits(deltaPhi);
+			h = 31*h + Double.doubleToLongBits(phiMin);
+			h = 31*h + Double.doubleToLongBits(phiMax);
+			return (int) (h ^ (h >>> 32));
+		}
+
+		/**
+		 * @param obj
+		 * @return	Returns true, if the keys are equal.
+		 * @see java.lang.Object#equals(java.lang.Object)
+		 */
+		@Override
+		public boolean equals(Object obj) {
+			if (this==obj) return true;
+			if (!(obj instanceof Key)) return false;
+			Key other = (Key) obj;
+			return Double.doubleToLongBits(rBig)==Double.doubleToLongBits(other.rBig) &&
+				Double.doubleToLongBits(rSmall)==Double.doubleToLongBits(other.rSmall) &&
+				Double.doubleToLongBits(lambda)==Double.doubleToLongBits(other.lambda) &&
+				Double.doubleToLongBits(deltaPhi)==Double.doubleToLongBits(other.deltaPhi) &&
+				Double.doubleToLongBits(phiMin)==Double.doubleToLongBits(other.phiMin) &&
+				Double.doubleToLongBits(phiMax)==Double.doubleToLongBits(other.phiMax);
+		}
+	}
+
+	/**
+	 * Contains the points of a figure. The coordinates must not be modified.
+	 */
+	public static class Entry {
+		final private float [] coordinates;
+		final private int startIndex;
+		final private double scale;
+
+		/**
+		 * @param coordinates	The points, interleaved as x0,y0,x1,y1,...
+		 * @param startIndex	The logical index of the first point.
+		 * @param scale			The scale of the figure of the points.
+		 */
+		public Entry(float [] coordinates, int startIndex, double scale) {
+			super();
+			this.coordinates = coordinates;
+			this.startIndex = startIndex;
+			this.scale = scale;
+		}
+
+		/**
+		 * @return	Returns the scale of the figure of the points.
+		 */
+		public double getScale() {
+			return scale;
+		}
+
+		/**
+		 * @return	Returns the points, interleaved as x0,y0,x1,y1,...
+		 */
+		public float[] getCoordinates() {
+			return coordinates;
+		}
+
+		/**
+		 * @return	Returns the logical index of the first point.
+		 */
+		public int getStartIndex() {
+			return startIndex;
+		}
+
+		/**
+		 * @return	Returns the number of points.
+		 */
+		public int getPointCount() {
+			return coordinates.length / 2;
+		}
+
+		/**
+		 * @return	Returns the number of bytes of the points.
+		 */
+		public long getByteCount() {
+			return (long) coordinates.length * 4;
+		}
+	}
+
+	/**
+	 * Refers to an entry and remembers its size after the entry has been 
+	 * dropped by the garbage collector.
+	 */
+	private static class Slot extends SoftReference<Entry> {
+		final long bytes;
+
+		Slot(Entry entry) {
+			super(entry);
+			this.bytes = entry.getByteCount();
+		}
+	}
+
+	private GeometryCache() {
+		super();
+	}
+
+	/**
+	 * @param rBig
+	 * @param rSmall
+	 * @return	Returns the greatest common divisor of the radii or 1, if 
+	 * 			the radii are not integer.
+	 */
+	public static double calculateScale(double rBig, double rSmall) {
+		if (rBig!=Math.rint(rBig) || rSmall!=Math.rint(rSmall) || 
+				rBig<=0 || rSmall<=0) {
+			return 1.0;
+		}
+		return Util.gcd((long) rBig, (long) rSmall);
+	}
+
+	/**
+	 * @param key
+	 * @return	Returns the entry for the key or null, if it is not cached.
+	 */
+	public static synchronized Entry get(Key key) {
+		Slot slot = slots.get(key);
+		Entry entry = (slot!=null) ? slot.get() : null;
+		if (entry==null) {
+			if (slot!=null) {
+				// dropped by the garbage collector:
+				slots.remove(key);
+				byteCount -= slot.bytes;
+			}
+			missCount++;
+			return null;
+		}
+		hitCount++;
+		return entry;
+	}
+
+	/**
+	 * Stores the entry for the key. Entries which are larger than the 
+	 * budget are not stored.
+	 * 
+	 * @param key
+	 * @param entry
+	 */
+	public static synchronized void put(Key key, Entry entry) {
+		if (entry.getByteCount()>budget) return;
+
+		Slot old = slots.put(key, new Slot(entry));
+		if (old!=null) {
+			byteCount -= old.bytes;
+		}
+		byteCount += entry.getByteCount();
+		evict();
+	}
+
+	/**
+	 * Drops the least recently used entries until the budget is kept.
+	 */
+	private static void evict() {
+		Iterator<Map.Entry<Key, Slot>> it = slots.entrySet().iterator();
+		while (byteCount>budget && it.hasNext()) {
+			Slot slot = it.next().getValue();
+			it.remove();
+			byteCount -= slot.bytes;
+			if (logger.isDebugEnabled()) {
+				logger.debug("evicted " + slot.bytes + " bytes"); //$NON-NLS-1$ //$NON-NLS-2$
+			}
+		}
+	}
+
+	/**
+	 * Drops all entries. The statistics are kept.
+	 */
+	public static synchronized void clear() {
+		slots.clear();
+		byteCount = 0;
+	}
+
+	/**
+	 * @return	Returns the maximum number of bytes of the cached points.
+	 */
+	public static synchronized long getBudget() {
+		return budget;
+	}
+
+	/**
+	 * Sets the maximum number of bytes of the cached points. If the cache 
+	 * contains more, the least recently used entries are dropped.
+	 * 
+	 * @param budget
+	 */
+	public static synchronized void setBudget(long budget) {
+		GeometryCache.budget = budget;
+		evict();
+	}
+
+	/**
+	 * @return	Returns the number of bytes of the cached points. Entries 
+	 * 			which have been dropped by the garbage collector are 
+	 * 			counted until they are requested again.
+	 */
+	public static synchronized long getByteCount() {
+		return byteCount;
+	}
+
+	/**
+	 * @return	Returns the number of entries.
+	 */
+	public static synchronized int getEntryCount() {
+		return slots.size();
+	}
+
+	/**
+	 * @return	Returns the number of requests which have been served.
+	 */
+	public static synchronized long getHitCount() {
+		return hitCount;
+	}
+
+	/**
+	 * @return	Returns the number of requests which could not be served.
+	 */
+	public static synchronized long getMissCount() {
+		return missCount;
+	}
+
+	/**
+	 * Resets the hit and miss counts.
+	 */
+	public static synchronized void resetStatistics() {
+		hitCount = 0;
+		missCount = 0;
+	}
+}
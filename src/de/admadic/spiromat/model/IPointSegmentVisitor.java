@@ -0,0 +1,49 @@
+/**
+ *
+ * #license-begin#
+ * MIT License
+ *
+ * Copyright (c) 2005 - 2022 admaDIC GbR - http://www.admadic.de/
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * #license-end#
+ *
+ * $Id$ 
+ */
+package de.admadic.spiromat.model;
+
+import java.nio.FloatBuffer;
+
+/**
+ * Receives the points of a PointStore segment by segment. A segment is a 
+ * run of points which is stored in one block. The segments of a range are 
+ * visited in the order of the points, so the last point of a segment is 
+ * followed by the first point of the next segment.
+ * 
+ * @author Rainer Schwarze
+ */
+public interface IPointSegmentVisitor {
+	/**
+	 * @param block		The block holding the points interleaved as 
+	 * 					x0,y0,x1,y1,... Use absolute get operations only.
+	 * @param offset	The array index of the x coordinate of the first point.
+	 * @param count		The number of points of the segment.
+	 */
+	abstract public void visitSegment(FloatBuffer block, int offset, int count);
+}
@@ -0,0 +1,294 @@
+/**
+ *
+ * #license-begin#
+ * MIT License
+ *
+ * Copyright (c) 2005 - 2022 admaDIC GbR - http://www.admadic.de/
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * #license-end#
+ *
+ * $Id$ 
+ */
+package de.admadic.spiromat.model;
+
+import java.awt.Rectangle;
+import java.awt.Shape;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.PathIterator;
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.nio.FloatBuffer;
+
+/**
+ * Provides a read-only view of a range of points, consisting of segments 
+ * which refer directly to the blocks of a PointStore. The view is a Shape 
+ * (an open polyline), so it can be drawn without copying the points.
+ * 
+ * A PointRange is meant to be reused: it is filled from a FigureSnapshot 
+ * (see {@link FigureSnapshot#getRange(int, int, PointRange)}) without 
+ * locking the FigureModel. It stays valid while the model keeps adding 
+ * points, because the model only writes outside of the published range 
+ * and the points inside it are never modified. Clearing the model replaces
+ * the store, so the range keeps showing the points of its snapshot.
+ * 
+ * @author Rainer Schwarze
+ */
+public class PointRange implements Shape, IPointSegmentVisitor {
+	private FloatBuffer [] blocks = new FloatBuffer[2];
+	private int [] offsets = new int[2];
+	private int [] counts = new int[2];
+	private int segmentCount;
+	private int pointCount;
+
+	/**
+	 * Creates an empty range.
+	 */
+	public PointRange() {
+		super();
+	}
+
+	/**
+	 * Removes all segments.
+	 */
+	public void clear() {
+		for (int i=0; i<segmentCount; i++) {
+			blocks[i] = null;
+		}
+		segmentCount = 0;
+		pointCount = 0;
+	}
+
+	/**
+	 * @param block
+	 * @param offset
+	 * @param count
+	 * @see de.admadic.spiromat.model.IPointSegmentVisitor#visitSegment(java.nio.FloatBuffer, int, int)
+	 */
+	public void visitSegment(FloatBuffer block, int offset, int count) {
+		if (segmentCount==blocks.length) {
+			int newsize = 2*segmentCount;
+			FloatBuffer [] tmpb = new FloatBuffer[newsize];
+			int [] tmpo = new int[newsize];
+			int [] tmpc = new int[newsize];
+			System.arraycopy(blocks, 0, tmpb, 0, segmentCount);
+			System.arraycopy(offsets, 0, tmpo, 0, segmentCount);
+			System.arraycopy(counts, 0, tmpc, 0, segmentCount);
+			blocks = tmpb;
+			offsets = tmpo;
+			counts = tmpc;
+		}
+		blocks[segmentCount] = block;
+		offsets[segmentCount] = offset;
+		counts[segmentCount] = count;
+		segmentCount++;
+		pointCount += count;
+	}
+
+	/**
+	 * Passes the segments of this range to the visitor.
+	 * 
+	 * @param visitor
+	 */
+	public void visitSegments(IPointSegmentVisitor visitor) {
+		for (int i=0; i<segmentCount; i++) {
+			visitor.visitSegment(blocks[i], offsets[i], counts[i]);
+		}
+	}
+
+	/**
+	 * @return	Returns the number of points.
+	 */
+	public int getPointCount() {
+		return pointCount;
+	}
+
+	/**
+	 * @return	Returns the number of segments.
+	 */
+	public int getSegmentCount() {
+		return segmentCount;
+	}
+
+	/**
+	 * @return	Returns the bounds of the points.
+	 * @see java.awt.Shape#getBounds2D()
+	 */
+	public Rectangle2D getBounds2D() {
+		if (pointCount==0) {
+			return new Rectangle2D.Float();
+		}
+		float xMin = Float.POSITIVE_INFINITY;
+		float yMin = Float.POSITIVE_INFINITY;
+		float xMax = Float.NEGATIVE_INFINITY;
+		float yMax = Float.NEGATIVE_INFINITY;
+		for (int s=0; s<segmentCount; s++) {
+			FloatBuffer block = blocks[s];
+			int end = offsets[s] + 2*counts[s];
+			for (int i=offsets[s]; i<end; i+=2) {
+				float x = block.get(i);
+				float y = block.get(i + 1);
+				xMin = Math.min(xMin, x);
+				xMax = Math.max(xMax, x);
+				yMin = Math.min(yMin, y);
+				yMax = Math.max(yMax, y);
+			}
+		}
+		return new Rectangle2D.Float(xMin, yMin, xMax - xMin, yMax - yMin);
+	}
+
+	/**
+	 * @see java.awt.Shape#getBounds()
+	 */
+	public Rectangle getBounds() {
+		return getBounds2D().getBounds();
+	}
+
+	/**
+	 * A polyline does not have an interior.
+	 * @see java.awt.Shape#contains(double, double)
+	 */
+	public boolean contains(double x, double y) {
+		return false;
+	}
+
+	/**
+	 * @see java.awt.Shape#contains(java.awt.geom.Point2D)
+	 */
+	public boolean contains(Point2D p) {
+		return false;
+	}
+
+	/**
+	 * @see java.awt.Shape#contains(double, double, double, double)
+	 */
+	public boolean contains(double x, double y, double w, double h) {
+		return false;
+	}
+
+	/**
+	 * @see java.awt.Shape#contains(java.awt.geom.Rectangle2D)
+	 */
+	public boolean contains(Rectangle2D r) {
+		return false;
+	}
+
+	/**
+	 * @see java.awt.Shape#intersects(double, double, double, double)
+	 */
+	public boolean intersects(double x, double y, double w, double h) {
+		return intersects(new Rectangle2D.Double(x, y, w, h));
+	}
+
+	/**
+	 * @see java.awt.Shape#intersects(java.awt.geom.Rectangle2D)
+	 */
+	public boolean intersects(Rectangle2D r) {
+		PathIterator it = getPathIterator(null);
+		float [] coords = new float[6];
+		float xLast = 0.0f;
+		float yLast = 0.0f;
+		while (!it.isDone()) {
+			int type = it.currentSegment(coords);
+			if (type==PathIterator.SEG_MOVETO) {
+				if (r.contains(coords[0], coords[1])) return true;
+			} else if (r.intersectsLine(xLast, yLast, coords[0], coords[1])) {
+				return true;
+			}
+			xLast = coords[0];
+			yLast = coords[1];
+			it.next();
+		}
+		return false;
+	}
+
+	/**
+	 * @see java.awt.Shape#getPathIterator(java.awt.geom.AffineTransform)
+	 */
+	public PathIterator getPathIterator(AffineTransform at) {
+		return new RangeIterator(at);
+	}
+
+	/**
+	 * @see java.awt.Shape#getPathIterator(java.awt.geom.AffineTransform, double)
+	 */
+	public PathIterator getPathIterator(AffineTransform at, double flatness) {
+		// there are only straight lines:
+		return new RangeIterator(at);
+	}
+
+	/**
+	 * Iterates over the points of all segments as one polyline.
+	 */
+	class RangeIterator implements PathIterator {
+		final AffineTransform transform;
+		int segment;
+		int index;
+		boolean first = true;
+
+		RangeIterator(AffineTransform transform) {
+			super();
+			this.transform = transform;
+			segment = 0;
+			index = 0;
+			skipEmptySegments();
+		}
+
+		private void skipEmptySegments() {
+			while (segment<segmentCount && index>=counts[segment]) {
+				segment++;
+				index = 0;
+			}
+		}
+
+		public int getWindingRule() {
+			return WIND_NON_ZERO;
+		}
+
+		public boolean isDone() {
+			return segment>=segmentCount;
+		}
+
+		public void next() {
+			first = false;
+			index++;
+			skipEmptySegments();
+		}
+
+		public int currentSegment(float[] coords) {
+			int pos = offsets[segment] + 2*index;
+			coords[0] = blocks[segment].get(pos);
+			coords[1] = blocks[segment].get(pos + 1);
+			if (transform!=null) {
+				transform.transform(coords, 0, coords, 0, 1);
+			}
+			return first ? SEG_MOVETO : SEG_LINETO;
+		}
+
+		public int currentSegment(double[] coords) {
+			int pos = offsets[segment] + 2*index;
+			coords[0] = blocks[segment].get(pos);
+			coords[1] = blocks[segment].get(pos + 1);
+			if (transform!=null) {
+				transform.transform(coords, 0, coords, 0, 1);
+			}
+			return first ? SEG_MOVETO : SEG_LINETO;
+		}
+	}
+}
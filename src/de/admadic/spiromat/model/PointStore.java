@@ -0,0 +1,322 @@
+/**
+ *
+ * #license-begin#
+ * MIT License
+ *
+ * Copyright (c) 2005 - 2022 admaDIC GbR - http://www.admadic.de/
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * #license-end#
+ *
+ * $Id$ 
+ */
+package de.admadic.spiromat.model;
+
+import java.lang.ref.Cleaner;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+
+import de.admadic.spiromat.log.Logger;
+
+/**
+ * Stores points in fixed size blocks. The points are addressed by logical 
+ * indexes, which may be negative. The range of addressable indexes is 
+ * extended at both ends by adding blocks, so existing points are never 
+ * moved. Only the directory of the blocks is copied when it grows, which 
+ * is about BLOCK_SIZE times smaller than the points.
+ * 
+ * The blocks are allocated when the first point is written into them.
+ * The users of a store only write points outside of the range which has 
+ * been handed out already, so PointStoreView and PointRange views stay 
+ * valid without locking.
+ * 
+ * By default the blocks are on-heap. If an off-heap budget is set, blocks
+ * are allocated as direct buffers as long as the budget allows it (the 
+ * budget is shared by all stores of the process). The budget can be set 
+ * with the VM option <code>-Dde.admadic.spiromat.model.offHeapBudget=bytes</code>
+ * or with setOffHeapBudget. An off-heap block stays accounted in the 
+ * budget as long as it is reachable, that is as long as the store, a 
+ * snapshot, a PointRange or a DetailPyramid refers to it. Its share is 
+ * returned when the garbage collector has found the block unreachable, 
+ * together with the native memory. Releasing a store only drops its 
+ * references, so the budget really limits the native memory, also when 
+ * stores are replaced quickly (e.g. while the pen hole slider is dragged).
+ * Blocks beyond the budget are on-heap. The blocks are not freed 
+ * explicitly, because readers of snapshots may still use them.
+ * 
+ * @author Rainer Schwarze
+ */
+public class PointStore {
+	final static Logger logger = Logger.getLogger(PointStore.class);
+
+	/** the number of points in one block is 2^BLOCK_SHIFT */
+	public final static int BLOCK_SHIFT = 10;
+	/** the number of points in one block */
+	public final static int BLOCK_SIZE = 1 << BLOCK_SHIFT;
+	final static int BLOCK_MASK = BLOCK_SIZE - 1;
+	/** the number of bytes of one block */
+	public final static int BLOCK_BYTES = 2*4*BLOCK_SIZE;
+
+	private static final String OFF_HEAP_BUDGET_PROPNAME = "de.admadic.spiromat.model.offHeapBudget"; //$NON-NLS-1$
+	// the number of bytes all stores may allocate off-heap:
+	private static long offHeapBudget = Long.getLong(OFF_HEAP_BUDGET_PROPNAME, 0).longValue();
+	// the number of bytes all stores have allocated off-heap:
+	private static long offHeapUsed = 0;
+	// returns the budget of the off-heap blocks which are unreachable:
+	private static final Cleaner cleaner = Cleaner.create();
+	// the action returning the share of one block:
+	private static final Runnable blockReturn = new BlockReturn();
+
+	// the blocks, the points are interleaved as x0,y0,x1,y1,...:
+	private FloatBuffer [] blocks;
+	// the physical position of the logical index 0:
+	private int origin;
+	// the read-only view of the current directory:
+	private PointStoreView view;
+
+	/**
+	 * Creates an empty store.
+	 */
+	public PointStore() {
+		super();
+		blocks = new FloatBuffer[1];
+		origin = 0;
+		view = new PointStoreView(blocks, origin);
+	}
+
+	/**
+	 * Makes the indexes from..to-1 addressable. The directory grows by at 
+	 * least half of its size, so repeated extensions are amortized.
+	 * 
+	 * @param from	The first index.
+	 * @param to	The index after the last index.
+	 */
+	public void ensureRange(int from, int to) {
+		int first = from + origin;
+		if (first<0) {
+			int needed = (-first + BLOCK_SIZE - 1) >> BLOCK_SHIFT;
+			growDirectory(Math.max(needed, blocks.length / 2), 0);
+		}
+		int last = to - 1 + origin;
+		if (last >= blocks.length << BLOCK_SHIFT) {
+			int needed = ((last >> BLOCK_SHIFT) + 1) - blocks.length;
+			growDirectory(0, Math.max(needed, blocks.length / 2));
+		}
+	}
+
+	/**
+	 * @param front	The number of blocks to add at the front.
+	 * @param back	The number of blocks to add at the back.
+	 */
+	private void growDirectory(int front, int back) {
+		FloatBuffer [] tmp = new FloatBuffer[front + blocks.length + back];
+		System.arraycopy(blocks, 0, tmp, front, blocks.length);
+		blocks = tmp;
+		origin += front << BLOCK_SHIFT;
+		view = new PointStoreView(blocks, origin);
+	}
+
+	/**
+	 * The share of an off-heap block is returned when the byte buffer is
+	 * unreachable. All float views of the block (also duplicates) refer to
+	 * it, so it lives as long as any of them.
+	 * 
+	 * @return	Returns a new block, off-heap if the budget allows it.
+	 */
+	private FloatBuffer allocateBlock() {
+		if (reserveOffHeap(BLOCK_BYTES)) {
+			ByteBuffer bytes = ByteBuffer.allocateDirect(BLOCK_BYTES);
+			cleaner.register(bytes, blockReturn);
+			return bytes.order(ByteOrder.nativeOrder()).asFloatBuffer();
+		}
+		return FloatBuffer.allocate(2*BLOCK_SIZE);
+	}
+
+	/**
+	 * Releases the blocks of this store. The store is empty afterwards.
+	 * Off-heap blocks are returned to the budget when they are unreachable,
+	 * views of the points which have been handed out keep them accounted.
+	 */
+	public void release() {
+		if (logger.isDebugEnabled()) {
+			int count = getOffHeapBlockCount();
+			if (count>0) {
+				logger.debug("releasing " + count + " off-heap blocks"); //$NON-NLS-1$ //$NON-NLS-2$
+			}
+		}
+		blocks = new FloatBuffer[1];
+		origin = 0;
+		view = new PointStoreView(blocks, origin);
+	}
+
+	/**
+	 * Sets a point. The index must be addressable.
+	 * 
+	 * @param index
+	 * @param x
+	 * @param y
+	 */
+	public void setPoint(int index, float x, float y) {
+		int pos = index + origin;
+		FloatBuffer block = blocks[pos >> BLOCK_SHIFT];
+		if (block==null) {
+			block = allocateBlock();
+			blocks[pos >> BLOCK_SHIFT] = block;
+		}
+		int i = 2*(pos & BLOCK_MASK);
+		block.put(i, x);
+		block.put(i + 1, y);
+	}
+
+	/**
+	 * @return	Returns a read-only view of the points which are currently 
+	 * 			addressable. The view stays valid when the store grows.
+	 */
+	public PointStoreView getView() {
+		return view;
+	}
+
+	/**
+	 * @param index
+	 * @return	Returns the x coordinate of the point.
+	 */
+	public float getX(int index) {
+		return view.getX(index);
+	}
+
+	/**
+	 * @param index
+	 * @return	Returns the y coordinate of the point.
+	 */
+	public float getY(int index) {
+		return view.getY(index);
+	}
+
+	/**
+	 * @param from		The first index.
+	 * @param to		The index after the last index.
+	 * @param visitor	The visitor receiving the segments.
+	 * @see PointStoreView#visitSegments(int, int, IPointSegmentVisitor)
+	 */
+	public void visitSegments(int from, int to, IPointSegmentVisitor visitor) {
+		view.visitSegments(from, to, visitor);
+	}
+
+	/**
+	 * @param from	The index of the first point.
+	 * @param count	The number of points.
+	 * @param range	The view to fill.
+	 * @see PointStoreView#getRange(int, int, PointRange)
+	 */
+	public void getRange(int from, int count, PointRange range) {
+		view.getRange(from, count, range);
+	}
+
+	/**
+	 * @param from	The index of the first point.
+	 * @param count	The number of points.
+	 * @param coord	0 for the x coordinates, 1 for the y coordinates.
+	 * @return	Returns the coordinates.
+	 * @see PointStoreView#copyCoordinates(int, int, int)
+	 */
+	public int[] copyCoordinates(int from, int count, int coord) {
+		return view.copyCoordinates(from, count, coord);
+	}
+
+	/**
+	 * @return	Returns the number of allocated blocks.
+	 */
+	public int getBlockCount() {
+		int count = 0;
+		for (FloatBuffer block : blocks) {
+			if (block!=null) count++;
+		}
+		return count;
+	}
+
+	/**
+	 * @return	Returns the number of allocated off-heap blocks.
+	 */
+	public int getOffHeapBlockCount() {
+		int count = 0;
+		for (FloatBuffer block : blocks) {
+			if (block!=null && block.isDirect()) count++;
+		}
+		return count;
+	}
+
+	/**
+	 * @param bytes
+	 * @return	Returns true, if the bytes fit into the off-heap budget. In 
+	 * 			that case they are accounted as used.
+	 */
+	private static synchronized boolean reserveOffHeap(long bytes) {
+		if (offHeapUsed + bytes > offHeapBudget) {
+			return false;
+		}
+		offHeapUsed += bytes;
+		return true;
+	}
+
+	/**
+	 * @param bytes
+	 */
+	private static synchronized void returnOffHeap(long bytes) {
+		offHeapUsed -= bytes;
+	}
+
+	/**
+	 * @return	Returns the number of bytes all stores may allocate off-heap.
+	 */
+	public static synchronized long getOffHeapBudget() {
+		return offHeapBudget;
+	}
+
+	/**
+	 * Sets the number of bytes all stores may allocate off-heap. Zero 
+	 * (the default) keeps all points on-heap. Lowering the budget does not 
+	 * affect blocks which are already allocated.
+	 * 
+	 * @param offHeapBudget
+	 */
+	public static synchronized void setOffHeapBudget(long offHeapBudget) {
+		PointStore.offHeapBudget = offHeapBudget;
+	}
+
+	/**
+	 * @return	Returns the number of bytes all stores have allocated off-heap.
+	 */
+	public static synchronized long getOffHeapUsed() {
+		return offHeapUsed;
+	}
+
+	/**
+	 * Returns the share of one off-heap block to the budget. It does not 
+	 * refer to the block, so the block can become unreachable.
+	 */
+	static final class BlockReturn implements Runnable {
+		/**
+		 * @see java.lang.Runnable#run()
+		 */
+		public void run() {
+			returnOffHeap(BLOCK_BYTES);
+		}
+	}
+}
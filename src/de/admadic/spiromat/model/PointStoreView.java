@@ -0,0 +1,146 @@
+/**
+ *
+ * #license-begin#
+ * MIT License
+ *
+ * Copyright (c) 2005 - 2022 admaDIC GbR - http://www.admadic.de/
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * #license-end#
+ *
+ * $Id$ 
+ */
+package de.admadic.spiromat.model;
+
+import java.nio.FloatBuffer;
+
+/**
+ * Provides read access to the points of a PointStore as they are 
+ * addressable at the time the view is created. The view does not change
+ * when the store grows its directory, so it can be read without locking 
+ * by other threads (for the indexes which have been written before the 
+ * view has been published).
+ * 
+ * @author Rainer Schwarze
+ */
+public class PointStoreView {
+	final private FloatBuffer [] blocks;
+	final private int origin;
+
+	/**
+	 * @param blocks	The directory of the blocks.
+	 * @param origin	The physical position of the logical index 0.
+	 */
+	PointStoreView(FloatBuffer [] blocks, int origin) {
+		super();
+		this.blocks = blocks;
+		this.origin = origin;
+	}
+
+	/**
+	 * @param index
+	 * @return	Returns the x coordinate of the point.
+	 */
+	public float getX(int index) {
+		int pos = index + origin;
+		return blocks[pos >> PointStore.BLOCK_SHIFT].get(2*(pos & PointStore.BLOCK_MASK));
+	}
+
+	/**
+	 * @param index
+	 * @return	Returns the y coordinate of the point.
+	 */
+	public float getY(int index) {
+		int pos = index + origin;
+		return blocks[pos >> PointStore.BLOCK_SHIFT].get(2*(pos & PointStore.BLOCK_MASK) + 1);
+	}
+
+	/**
+	 * Passes the points from..to-1 to the visitor, one segment per block.
+	 * 
+	 * @param from		The first index.
+	 * @param to		The index after the last index.
+	 * @param visitor	The visitor receiving the segments.
+	 */
+	public void visitSegments(int from, int to, IPointSegmentVisitor visitor) {
+		int pos = from + origin;
+		int end = to + origin;
+		while (pos<end) {
+			int count = Math.min(PointStore.BLOCK_SIZE - (pos & PointStore.BLOCK_MASK), end - pos);
+			visitor.visitSegment(
+					blocks[pos >> PointStore.BLOCK_SHIFT], 
+					2*(pos & PointStore.BLOCK_MASK), count);
+			pos += count;
+		}
+	}
+
+	/**
+	 * Fills the range view with the segments of the points from..from+count-1.
+	 * 
+	 * @param from	The index of the first point.
+	 * @param count	The number of points.
+	 * @param range	The view to fill.
+	 */
+	public void getRange(int from, int count, PointRange range) {
+		range.clear();
+		visitSegments(from, from + count, range);
+	}
+
+	/**
+	 * Copies a range of points.
+	 * 
+	 * @param from	The index of the first point.
+	 * @param count	The number of points.
+	 * @return	Returns the points, interleaved as x0,y0,x1,y1,...
+	 */
+	public float[] copyPoints(int from, int count) {
+		final float [] tmp = new float[2*count];
+		visitSegments(from, from + count, new IPointSegmentVisitor() {
+			int n = 0;
+			public void visitSegment(FloatBuffer block, int offset, int segCount) {
+				block.get(offset, tmp, n, 2*segCount);
+				n += 2*segCount;
+			}
+		});
+		return tmp;
+	}
+
+	/**
+	 * Converts one coordinate of a range of points to integers.
+	 * 
+	 * @param from	The index of the first point.
+	 * @param count	The number of points.
+	 * @param coord	0 for the x coordinates, 1 for the y coordinates.
+	 * @return	Returns the coordinates.
+	 */
+	public int[] copyCoordinates(int from, int count, final int coord) {
+		final int [] tmp = new int[count];
+		visitSegments(from, from + count, new IPointSegmentVisitor() {
+			int n = 0;
+			public void visitSegment(FloatBuffer block, int offset, int segCount) {
+				int pos = offset + coord;
+				for (int i=0; i<segCount; i++) {
+					tmp[n++] = (int) block.get(pos);
+					pos += 2;
+				}
+			}
+		});
+		return tmp;
+	}
+}
@@ -32,6 +32,7 @@ import java.awt.AlphaComposite;
 import java.awt.BasicStroke;
 import java.awt.Graphics2D;
 import java.awt.geom.AffineTransform;
+import java.awt.geom.Rectangle2D;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
 
@@ -55,6 +56,12 @@ abstract public class AbstractGearView implements Drawable, PropertyChangeListen
 
 	int [] x;
 	int [] y;
+	// the largest distance of the shape's points from the gear center:
+	double boundingRadius;
+	// the bounds of the last drawVolatileParts call, null if not drawn:
+	private Rectangle2D drawnBounds = null;
+	// true, if the appearance has changed since drawVolatileParts:
+	private boolean volatileChanged = true;
 
 	double angle;
 	double xc;
@@ -83,6 +90,8 @@ abstract public class AbstractGearView implements Drawable, PropertyChangeListen
 		if (propName!=null) {
 			if (propName.equals(AbstractGearSpec.PROP_RADIUS)) {
 				updateParameters();
+			} else if (propName.equals(AbstractGearSpec.PROP_COLOR)) {
+				volatileChanged = true;
 			}
 		}
 	}
@@ -95,6 +104,12 @@ abstract public class AbstractGearView implements Drawable, PropertyChangeListen
 		this.teeth = gearSpec.getRadius();
 		this.teethHeight = (int) (radius * Math.PI * 2 / (this.teeth*1.5 ));
 		initData();
+		double r = 0.0;
+		for (int i=0; i<x.length; i++) {
+			r = Math.max(r, Math.hypot(x[i], y[i]));
+		}
+		boundingRadius = r;
+		volatileChanged = true;
 	}
 	
 	/**
@@ -113,6 +128,7 @@ abstract public class AbstractGearView implements Drawable, PropertyChangeListen
 			this.angle = angle;
 			this.xc = xc;
 			this.yc = yc;
+			volatileChanged = true;
 		}
 	}
 
@@ -197,6 +213,9 @@ abstract public class AbstractGearView implements Drawable, PropertyChangeListen
 	 * @param visible the visible to set
 	 */
 	public void setVisible(boolean visible) {
+		if (this.visible!=visible) {
+			volatileChanged = true;
+		}
 		this.visible = visible;
 	}
 
@@ -210,6 +229,42 @@ abstract public class AbstractGearView implements Drawable, PropertyChangeListen
 				" R=" + gearSpec.getRadius()); //$NON-NLS-1$
 	}
 
+	/**
+	 * @return	Returns null, there are no staying parts.
+	 * @see de.admadic.spiromat.shapes.Drawable#getStayingDamage()
+	 */
+	public Rectangle2D getStayingDamage() {
+		return null;
+	}
+
+	/**
+	 * @return	Returns the bounds of the gear at its current position or 
+	 * 			null, if it is not visible.
+	 */
+	protected Rectangle2D getVolatileBounds() {
+		if (!isVisible()) return null;
+		double r = boundingRadius + strokeWidth;
+		synchronized (this) {
+			return new Rectangle2D.Double(xc - r, yc - r, 2*r, 2*r);
+		}
+	}
+
+	/**
+	 * @return	Returns the bounds of the gear at the drawn and the current 
+	 * 			position, if the gear has changed.
+	 * @see de.admadic.spiromat.shapes.Drawable#getVolatileDamage()
+	 */
+	public Rectangle2D getVolatileDamage() {
+		if (!volatileChanged) return null;
+		Rectangle2D damage = getVolatileBounds();
+		if (damage==null) {
+			damage = drawnBounds;
+		} else if (drawnBounds!=null) {
+			damage.add(drawnBounds);
+		}
+		return damage;
+	}
+
 	/**
 	 * @param g
 	 * @see de.admadic.spiromat.shapes.Drawable#drawVolatileParts(java.awt.Graphics2D)
@@ -217,6 +272,8 @@ abstract public class AbstractGearView implements Drawable, PropertyChangeListen
 	public void drawVolatileParts(Graphics2D g) {
 		logger.debug("drawVolatile: " + //$NON-NLS-1$
 				" R=" + gearSpec.getRadius()); //$NON-NLS-1$
+		drawnBounds = getVolatileBounds();
+		volatileChanged = false;
 		drawImpl(g);
 	}
 }
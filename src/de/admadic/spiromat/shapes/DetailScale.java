@@ -0,0 +1,77 @@
+/**
+ *
+ * #license-begin#
+ * MIT License
+ *
+ * Copyright (c) 2005 - 2022 admaDIC GbR - http://www.admadic.de/
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * #license-end#
+ *
+ * $Id$ 
+ */
+package de.admadic.spiromat.shapes;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+
+/**
+ * Provides the rendering hint which tells Drawables how many device pixels
+ * a model pixel covers. Drawables may draw simplified shapes, if a model 
+ * pixel is smaller than a device pixel. Without the hint, they draw with 
+ * the full detail.
+ * 
+ * @author Rainer Schwarze
+ */
+public class DetailScale {
+	/** the hint key, the value is a Double with device pixels per model pixel */
+	public final static RenderingHints.Key KEY_DETAIL_SCALE = new Key();
+	/** the allowed deviation of simplified shapes in device pixels */
+	public final static double PIXEL_ERROR = 0.25;
+
+	/**
+	 * The key class for the detail scale hint.
+	 */
+	static class Key extends RenderingHints.Key {
+		Key() {
+			super(0x5350524d);
+		}
+
+		@Override
+		public boolean isCompatibleValue(Object val) {
+			return val instanceof Double;
+		}
+	}
+
+	private DetailScale() {
+		super();
+	}
+
+	/**
+	 * @param g
+	 * @return	Returns the allowed deviation in model pixels for the 
+	 * 			Graphics2D or 0.0, if it has no detail scale hint.
+	 */
+	public static double getTolerance(Graphics2D g) {
+		Object value = g.getRenderingHint(KEY_DETAIL_SCALE);
+		if (!(value instanceof Double)) return 0.0;
+		double scale = ((Double)value).doubleValue();
+		return (scale>0.0) ? PIXEL_ERROR / scale : 0.0;
+	}
+}
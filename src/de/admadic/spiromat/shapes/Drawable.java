@@ -29,10 +29,17 @@
 package de.admadic.spiromat.shapes;
 
 import java.awt.Graphics2D;
+import java.awt.geom.Rectangle2D;
 
 /**
  * Provides an interface for Drawable components.
  * 
+ * The regions reported by {@link #getStayingDamage()} and 
+ * {@link #getVolatileDamage()} are used for updating only the changed 
+ * parts of the back buffers. They are given in model coordinates and must
+ * contain everything which is touched by the drawing (including the width
+ * of the lines). Antialiasing is covered by the caller.
+ * 
  * @author Rainer Schwarze
  */
 public interface Drawable {
@@ -63,4 +70,18 @@ public interface Drawable {
 	 * @param g
 	 */
 	public abstract void drawVolatileParts(Graphics2D g);
+
+	/**
+	 * @return	Returns the region which has been changed by the last call 
+	 * 			of drawStayingParts or null, if nothing has been drawn.
+	 */
+	public abstract Rectangle2D getStayingDamage();
+
+	/**
+	 * @return	Returns the region in which the volatile parts have changed
+	 * 			since the last call of drawVolatileParts (where they have 
+	 * 			been drawn and where they are drawn now) or null, if they 
+	 * 			have not changed.
+	 */
+	public abstract Rectangle2D getVolatileDamage();
 }
\ No newline at end of file
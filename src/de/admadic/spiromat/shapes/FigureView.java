@@ -31,14 +31,22 @@ package de.admadic.spiromat.shapes;
 import java.awt.BasicStroke;
 import java.awt.Graphics2D;
 import java.awt.Point;
+import java.awt.RenderingHints;
+import java.awt.Shape;
 import java.awt.Stroke;
+import java.awt.geom.Path2D;
+import java.awt.geom.Rectangle2D;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
+import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
 
 import de.admadic.spiromat.log.Logger;
 import de.admadic.spiromat.model.AppModel;
 import de.admadic.spiromat.model.FigureModel;
+import de.admadic.spiromat.model.FigureSnapshot;
 import de.admadic.spiromat.model.FigureSpec;
+import de.admadic.spiromat.model.PointRange;
 
 /**
  * 
@@ -48,14 +56,39 @@ public class FigureView implements Drawable, PropertyChangeListener {
 	final static Logger logger = Logger.getLogger(FigureView.class);
 
 	FigureSpec figureSpec;
-	FigureModel model;
 	
 	private int [] x = new int[0];
 	private int [] y = new int[0];
 	int count = 0;
 
+	// the views of the model's points which are drawn next (reused):
+	final private PointRange dirtyAtStart = new PointRange();
+	final private PointRange dirtyAtEnd = new PointRange();
+
+	// the region changed by the last drawStayingParts call or null:
+	private Rectangle2D stayingDamage = null;
+
+	// the path and the outline of the figure for full redraws, which may
+	// be dropped when the memory gets low. Only the active figure keeps 
+	// them, the others are compacted:
+	private SoftReference<OutlineCache> outlineCache = null;
+
+	// the marker for the drawn indexes before the first drawing. The 
+	// logical indexes may be negative, so -1 cannot be used:
+	final static int UNDRAWN = Integer.MIN_VALUE;
+	// the part of the model's points which has been drawn already. The 
+	// indexes are only valid for the snapshots of the drawn generation:
+	private int drawnGeneration;
+	private int drawnStartIndex = UNDRAWN;
+	private int drawnEndIndex = UNDRAWN;
+
 	private boolean visible = true;
 	private boolean ignoreActiveStatus = false;
+	private boolean useBezierPath = false;
+	private double bezierTolerance = DEFAULT_BEZIER_TOLERANCE;
+
+	/** the default deviation of the Bezier path in model pixels */
+	public final static double DEFAULT_BEZIER_TOLERANCE = 0.1;
 
 	final private Stroke stroke = new BasicStroke(3.0f);
 	final private Stroke strokeActive = new BasicStroke(5.0f);
@@ -66,7 +99,8 @@ public class FigureView implements Drawable, PropertyChangeListener {
 	public FigureView(FigureSpec figureSpec) {
 		super();
 		this.figureSpec = figureSpec;
-		this.model = this.figureSpec.getFigureModel();
+		// the model is retrieved when drawing, so hidden figures are not 
+		// calculated:
 		this.figureSpec.addPropertyChangeListener(this);
 		ensureCapacity(11);
 
@@ -136,7 +170,50 @@ public class FigureView implements Drawable, PropertyChangeListener {
 	 */
 	public void drawReset() {
 		logger.debug("resetting"); //$NON-NLS-1$
-		model.clearDrawn();
+		clearDrawn();
+	}
+
+	/**
+	 * Resets the markers which indicate which points have been drawn 
+	 * already.
+	 */
+	private synchronized void clearDrawn() {
+		drawnStartIndex = UNDRAWN;
+		drawnEndIndex = UNDRAWN;
+	}
+
+	/**
+	 * @param snap
+	 * @return	Returns the number of points of the snapshot which have 
+	 * 			not yet been drawn. The range begins at startIndex.
+	 */
+	private int getDirtyAtStartCount(FigureSnapshot snap) {
+		if (drawnStartIndex==UNDRAWN) {
+			logger.debug("not drawn yet, returning nothing"); //$NON-NLS-1$
+			return 0;
+		}
+		if (drawnStartIndex==snap.getStartIndex()) {
+			return 0;
+		}
+		int count = drawnStartIndex - snap.getStartIndex() + 1;
+		if (snap.getEndIndex()==drawnStartIndex) count--;
+		return count;
+	}
+
+	/**
+	 * @param snap
+	 * @return	Returns the number of points of the snapshot which have 
+	 * 			not yet been drawn including the last drawn point (for 
+	 * 			the joining segment). The range ends at endIndex.
+	 */
+	private int getDirtyAtEndCount(FigureSnapshot snap) {
+		if (drawnEndIndex==UNDRAWN) {
+			logger.debug("not drawn yet, returning full"); //$NON-NLS-1$
+			return snap.getPointCount();
+		}
+		int count = snap.getEndIndex() - drawnEndIndex;
+		if (count>0 && drawnEndIndex>drawnStartIndex) count++;
+		return count;
 	}
 
 	/**
@@ -171,39 +248,269 @@ public class FigureView implements Drawable, PropertyChangeListener {
 				" Ri=" + figureSpec.getInnerRadius() +  //$NON-NLS-1$
 				" L=" + figureSpec.getPenHolePos()); //$NON-NLS-1$
 
+		stayingDamage = null;
+		if (outlineCache!=null && !figureSpec.isActive()) {
+			// the figure is not extended anymore and its points are compact:
+			outlineCache = null;
+		}
 		if (!isVisible()) return;
 		
-		int [] tmpxs;
-		int [] tmpys;
-		int [] tmpxe;
-		int [] tmpye;
-		synchronized (model) {
-			tmpxs = model.getDirtyAtStartPointsX();
-			tmpys = model.getDirtyAtStartPointsY();
-			tmpxe = model.getDirtyAtEndPointsX();
-			tmpye = model.getDirtyAtEndPointsY();
-			model.markDrawn();
+		double tolerance = DetailScale.getTolerance(g);
+		FigureModel model = figureSpec.peekFigureModel();
+		if (model==null) {
+			synchronized (this) {
+				if (drawnStartIndex!=UNDRAWN) {
+					// the model has been dropped after drawing and nothing
+					// has changed since, so it is not needed:
+					return;
+				}
+			}
+			model = figureSpec.getFigureModel();
+		}
+		// the model is not locked, the generator may add points meanwhile:
+		FigureSnapshot snap = model.getSnapshot();
+		boolean undrawn;
+		synchronized (this) {
+			if (drawnGeneration!=snap.getGeneration()) {
+				drawnGeneration = snap.getGeneration();
+				clearDrawn();
+			}
+			undrawn = drawnStartIndex==UNDRAWN;
+			if (!undrawn) {
+				int startCount = getDirtyAtStartCount(snap);
+				int endCount = getDirtyAtEndCount(snap);
+				snap.getRange(snap.getStartIndex(), startCount, dirtyAtStart);
+				snap.getRange(snap.getEndIndex() - endCount, endCount, dirtyAtEnd);
+			}
+			drawnStartIndex = snap.getStartIndex();
+			drawnEndIndex = snap.getEndIndex();
+		}
+		Stroke s = null;
+		if (isIgnoreActiveStatus() || AppModel.getInstance().getShowPicture()) {
+			s = stroke;
+		} else {
+			s = figureSpec.isActive() ? strokeActive : stroke;
+		}
+		OutlineCache full = null;
+		if (undrawn) {
+			dirtyAtStart.clear();
+			if (snap.getPointCount()>0) {
+				// a full redraw uses the prepared path of the figure:
+				full = getFullPath(model, snap, tolerance);
+			}
 		}
 		Graphics2D gb = g;
 		try {
 			gb.setPaintMode();
-			Stroke s = null;
-			if (isIgnoreActiveStatus() || AppModel.getInstance().getShowPicture()) {
-				s = stroke;
-			} else {
-				s = figureSpec.isActive() ? strokeActive : stroke;
-			}
 			gb.setStroke(s);
 			gb.setColor(figureSpec.getColor());
 
-			logger.debug("drawing: start=" + tmpxs.length + " end=" + tmpxe.length); //$NON-NLS-1$ //$NON-NLS-2$
-			gb.drawPolyline(tmpxs, tmpys, tmpxs.length);
-			gb.drawPolyline(tmpxe, tmpye, tmpxe.length);
+			Rectangle2D damage = null;
+			if (full!=null && !full.bezier && isPureStroke(gb)) {
+				logger.debug("drawing: outline"); //$NON-NLS-1$
+				Shape outline = full.getOutline(s);
+				gb.fill(outline);
+				// the outline includes the stroke:
+				damage = outline.getBounds2D();
+			} else if (full!=null) {
+				// Bezier curves stay curves (e.g. for vector graphics):
+				logger.debug("drawing: path"); //$NON-NLS-1$
+				gb.draw(full.path);
+				damage = full.path.getBounds2D();
+				double m = getStrokeExtent((BasicStroke) s);
+				damage.setRect(
+						damage.getX() - m, damage.getY() - m, 
+						damage.getWidth() + 2*m, damage.getHeight() + 2*m);
+			} else {
+				logger.debug("drawing: start=" + dirtyAtStart.getPointCount() + " end=" + dirtyAtEnd.getPointCount()); //$NON-NLS-1$ //$NON-NLS-2$
+				gb.draw(dirtyAtStart);
+				gb.draw(dirtyAtEnd);
+				if (dirtyAtStart.getPointCount()>0) {
+					damage = dirtyAtStart.getBounds2D();
+				}
+				if (dirtyAtEnd.getPointCount()>0) {
+					Rectangle2D r = dirtyAtEnd.getBounds2D();
+					if (damage==null) {
+						damage = r;
+					} else {
+						damage.add(r);
+					}
+				}
+				if (damage!=null) {
+					double m = getStrokeExtent((BasicStroke) s);
+					damage.setRect(
+							damage.getX() - m, damage.getY() - m, 
+							damage.getWidth() + 2*m, damage.getHeight() + 2*m);
+				}
+			}
+			stayingDamage = damage;
 		} finally {
+			// drop the references to the blocks:
+			dirtyAtStart.clear();
+			dirtyAtEnd.clear();
 			// gb.dispose();
 		}
 	}
 
+	/**
+	 * Returns the path of the complete figure. For the active figure the 
+	 * path and its outline are kept for the next full redraw: points which 
+	 * have been added at the end of the model are appended to the path and
+	 * the outline of an unchanged figure is not stroked again.
+	 * 
+	 * @param model
+	 * @param snap		The state of the model to draw.
+	 * @param tolerance	The allowed deviation of a simplified polyline.
+	 * @return	Returns the path of the figure and its outline.
+	 */
+	private OutlineCache getFullPath(
+			FigureModel model, FigureSnapshot snap, double tolerance) {
+		boolean bezier = isUseBezierPath();
+		if (bezier) tolerance = bezierTolerance;
+		OutlineCache c = (outlineCache==null) ? null : outlineCache.get();
+		if (c==null || !c.isValidFor(model, snap, bezier, tolerance)) {
+			c = new OutlineCache(model, snap, bezier, tolerance);
+			if (bezier) {
+				// a single path of Bezier curves:
+				c.path = FigureModel.createBezierPath(snap, bezierTolerance);
+			} else {
+				// the polyline may be simplified:
+				model.getPoints(snap, dirtyAtEnd, tolerance);
+				c.path = new Path2D.Float(dirtyAtEnd);
+				dirtyAtEnd.clear();
+			}
+			outlineCache = figureSpec.isActive() ? 
+					new SoftReference<OutlineCache>(c) : null;
+		} else if (c.endIndex<snap.getEndIndex()) {
+			// the new points are appended (not simplified):
+			snap.getRange(c.endIndex, snap.getEndIndex() - c.endIndex, dirtyAtEnd);
+			c.path.append(dirtyAtEnd, true);
+			dirtyAtEnd.clear();
+			c.endIndex = snap.getEndIndex();
+			c.outline = null;
+		}
+		return c;
+	}
+
+	/**
+	 * @return	Returns true, if the path of the figure is kept for the next
+	 * 			full redraw.
+	 */
+	boolean isOutlineCached() {
+		return outlineCache!=null && outlineCache.get()!=null;
+	}
+
+	/**
+	 * @param g
+	 * @return	Returns true, if the Graphics does not normalize strokes. 
+	 * 			Only then filling the outline matches drawing the path.
+	 */
+	private static boolean isPureStroke(Graphics2D g) {
+		return RenderingHints.VALUE_STROKE_PURE.equals(
+				g.getRenderingHint(RenderingHints.KEY_STROKE_CONTROL));
+	}
+
+	/**
+	 * The path of a figure and its outline for a stroke.
+	 */
+	static final class OutlineCache {
+		// the model is not kept alive by the cache:
+		final WeakReference<FigureModel> model;
+		final int generation;
+		final int startIndex;
+		int endIndex;
+		final boolean bezier;
+		final double tolerance;
+		Path2D path;
+		Stroke stroke;
+		Shape outline;
+
+		/**
+		 * @param model
+		 * @param snap
+		 * @param bezier
+		 * @param tolerance
+		 */
+		OutlineCache(
+				FigureModel model, FigureSnapshot snap, 
+				boolean bezier, double tolerance) {
+			this.model = new WeakReference<FigureModel>(model);
+			this.generation = snap.getGeneration();
+			this.startIndex = snap.getStartIndex();
+			this.endIndex = snap.getEndIndex();
+			this.bezier = bezier;
+			this.tolerance = tolerance;
+		}
+
+		/**
+		 * @param s
+		 * @return	Returns the outline of the path for the stroke.
+		 */
+		Shape getOutline(Stroke s) {
+			if (outline==null || !s.equals(stroke)) {
+				outline = s.createStrokedShape(path);
+				stroke = s;
+			}
+			return outline;
+		}
+
+		/**
+		 * @param fm
+		 * @param snap
+		 * @param bz
+		 * @param tol
+		 * @return	Returns true, if the path shows the points of the 
+		 * 			snapshot or a part of them to which the missing points 
+		 * 			can be appended.
+		 */
+		boolean isValidFor(
+				FigureModel fm, FigureSnapshot snap, boolean bz, double tol) {
+			if (model.get()!=fm || 
+					generation!=snap.getGeneration() || 
+					startIndex!=snap.getStartIndex() || 
+					bezier!=bz) {
+				return false;
+			}
+			if (bezier) {
+				// the curves are not extended:
+				return endIndex==snap.getEndIndex() && tolerance==tol;
+			}
+			// a path with more detail is fine:
+			return endIndex<=snap.getEndIndex() && tolerance<=tol;
+		}
+	}
+
+	/**
+	 * @param s
+	 * @return	Returns how far the stroke reaches beyond the points of the
+	 * 			line (miter joins of sharp angles are the largest part).
+	 */
+	private static double getStrokeExtent(BasicStroke s) {
+		double m = s.getLineWidth() / 2;
+		if (s.getLineJoin()==BasicStroke.JOIN_MITER) {
+			m *= Math.max(1.0f, s.getMiterLimit());
+		} else if (s.getEndCap()==BasicStroke.CAP_SQUARE) {
+			m *= Math.sqrt(2.0);
+		}
+		return m;
+	}
+
+	/**
+	 * @return	Returns the region of the last drawStayingParts call.
+	 * @see de.admadic.spiromat.shapes.Drawable#getStayingDamage()
+	 */
+	public Rectangle2D getStayingDamage() {
+		return stayingDamage;
+	}
+
+	/**
+	 * @return	Returns null, figures have no volatile parts.
+	 * @see de.admadic.spiromat.shapes.Drawable#getVolatileDamage()
+	 */
+	public Rectangle2D getVolatileDamage() {
+		return null;
+	}
+
 	/**
 	 * @param g
 	 * @see de.admadic.spiromat.shapes.Drawable#drawVolatileParts(java.awt.Graphics2D)
@@ -222,12 +529,8 @@ public class FigureView implements Drawable, PropertyChangeListener {
 	 * 
 	 */
 	void updatePointsFromModel() {
-		synchronized (model) {
-			model.clearDrawn();
-			this.setPoints(
-					model.getPointsX(), 
-					model.getPointsY());
-		}
+		// the points are taken from the model when drawing:
+		clearDrawn();
 	}
 
 	/**
@@ -252,6 +555,11 @@ public class FigureView implements Drawable, PropertyChangeListener {
 				this.clear();	 // redundant...
 				this.updatePointsFromModel();
 			} else if (propName.equals(FigureSpec.PROP_CURSOR_ANGLE)) {
+				if (figureSpec.peekFigureModel()==null) {
+					// the model has been dropped, so the interval may have 
+					// changed without it:
+					this.updatePointsFromModel();
+				}
 				// FIXME: is the cursor angle handling ok here? (especially with the locking?)
 				// ? if (model.addPoints(phi)) {
 //				this.updatePointsFromModel();
@@ -290,4 +598,39 @@ public class FigureView implements Drawable, PropertyChangeListener {
 	public void setIgnoreActiveStatus(boolean ignoreActiveStatus) {
 		this.ignoreActiveStatus = ignoreActiveStatus;
 	}
+
+
+	/**
+	 * @return the useBezierPath
+	 */
+	public boolean isUseBezierPath() {
+		return useBezierPath;
+	}
+
+
+	/**
+	 * If enabled, a full redraw of the figure is done with a Bezier path 
+	 * instead of the polyline of the model points.
+	 * 
+	 * @param useBezierPath the useBezierPath to set
+	 */
+	public void setUseBezierPath(boolean useBezierPath) {
+		this.useBezierPath = useBezierPath;
+	}
+
+
+	/**
+	 * @return the bezierTolerance
+	 */
+	public double getBezierTolerance() {
+		return bezierTolerance;
+	}
+
+
+	/**
+	 * @param bezierTolerance the bezierTolerance to set
+	 */
+	public void setBezierTolerance(double bezierTolerance) {
+		this.bezierTolerance = bezierTolerance;
+	}
 }
@@ -0,0 +1,226 @@
+/**
+ *
+ * #license-begin#
+ * MIT License
+ *
+ * Copyright (c) 2005 - 2022 admaDIC GbR - http://www.admadic.de/
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * #license-end#
+ *
+ * $Id$ 
+ */
+package de.admadic.spiromat.ui;
+
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.Rectangle;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.awt.image.VolatileImage;
+import java.util.ArrayList;
+import java.util.List;
+
+import de.admadic.spiromat.log.Logger;
+
+/**
+ * Provides a copy of a frame in a VolatileImage, so the frame can be 
+ * painted repeatedly (and scaled) by the graphics hardware. The frame 
+ * itself stays in a BufferedImage, which is used for restoring the 
+ * VolatileImage when its contents are lost.
+ * 
+ * Changes of the frame are uploaded as the regions which the caller has
+ * reported with {@link #invalidate(List)}. The whole frame is uploaded 
+ * for a new image, after the contents have been lost, or if the changed 
+ * regions are not known.
+ * 
+ * If no accelerated VolatileImage can be created (like in headless mode), 
+ * {@link #draw} returns false and the caller draws the BufferedImage
+ * itself. For testing, the frame can be created without requiring 
+ * acceleration.
+ * 
+ * This class is not thread safe, the caller must lock.
+ * 
+ * @author Rainer Schwarze
+ */
+public class AcceleratedFrame {
+	final static Logger logger = Logger.getLogger(AcceleratedFrame.class);
+
+	final private boolean requireAcceleration;
+	private VolatileImage image = null;
+	// true, if the image contains the frame except for the dirty regions:
+	private boolean contentValid = false;
+	// the regions of the frame which have changed since the last upload:
+	final private List<Rectangle> dirtyRegions = new ArrayList<Rectangle>();
+	// the number of dirty regions from which on the whole frame is uploaded:
+	final static int MAX_DIRTY_REGIONS = 64;
+	// true, if no accelerated image could be created:
+	private boolean unavailable = false;
+
+	/**
+	 * @param requireAcceleration	If true, the frame is only used with an
+	 * 								accelerated VolatileImage.
+	 */
+	public AcceleratedFrame(boolean requireAcceleration) {
+		super();
+		this.requireAcceleration = requireAcceleration;
+	}
+
+	/**
+	 * Marks the copy as outdated. This must be called whenever the frame 
+	 * has been changed and the changed regions are not known.
+	 */
+	public void invalidate() {
+		contentValid = false;
+		dirtyRegions.clear();
+	}
+
+	/**
+	 * Marks the regions of the copy as outdated. Only these regions are 
+	 * uploaded on the next draw (unless the whole copy has to be restored).
+	 * 
+	 * @param regions	The changed regions in frame pixels, null if the 
+	 * 					whole frame has changed.
+	 */
+	public void invalidate(List<Rectangle> regions) {
+		if (regions==null || 
+				dirtyRegions.size() + regions.size() > MAX_DIRTY_REGIONS) {
+			invalidate();
+			return;
+		}
+		if (!contentValid) return;	// the whole frame is uploaded anyway
+		for (Rectangle r : regions) {
+			dirtyRegions.add(new Rectangle(r));
+		}
+	}
+
+	/**
+	 * Draws the frame at x,y (using the transformation of g). The copy of
+	 * the frame is updated or restored as needed.
+	 * 
+	 * @param g			The graphics to draw to.
+	 * @param gc		The configuration of the device or null, if not known.
+	 * @param frame		The frame.
+	 * @param x
+	 * @param y
+	 * @return	Returns true, if the frame has been drawn, false if the 
+	 * 			caller has to draw the frame itself.
+	 */
+	public boolean draw(
+			Graphics2D g, GraphicsConfiguration gc, 
+			BufferedImage frame, int x, int y) {
+		if (unavailable || gc==null) return false;
+
+		do {
+			if (image==null || 
+					image.getWidth()!=frame.getWidth() || 
+					image.getHeight()!=frame.getHeight()) {
+				if (!createImage(gc, frame.getWidth(), frame.getHeight())) {
+					return false;
+				}
+			}
+			int state = image.validate(gc);
+			if (state==VolatileImage.IMAGE_INCOMPATIBLE) {
+				logger.debug("volatile image incompatible, recreating"); //$NON-NLS-1$
+				if (!createImage(gc, frame.getWidth(), frame.getHeight())) {
+					return false;
+				}
+			} else if (state==VolatileImage.IMAGE_RESTORED) {
+				logger.debug("volatile image restored"); //$NON-NLS-1$
+				invalidate();
+			}
+			if (!contentValid || !dirtyRegions.isEmpty()) {
+				upload(frame);
+			}
+			g.drawImage(image, x, y, null);
+			if (image.contentsLost()) {
+				invalidate();
+			}
+		} while (!contentValid);
+		return true;
+	}
+
+	/**
+	 * Copies the frame to the image, only the dirty regions if the image 
+	 * is valid otherwise.
+	 * 
+	 * @param frame
+	 */
+	private void upload(BufferedImage frame) {
+		Graphics2D gi = image.createGraphics();
+		try {
+			if (!contentValid) {
+				gi.drawImage(frame, 0, 0, null);
+			} else {
+				Rectangle bounds = new Rectangle(0, 0, frame.getWidth(), frame.getHeight());
+				for (Rectangle dirty : dirtyRegions) {
+					Rectangle r = dirty.intersection(bounds);
+					if (r.isEmpty()) continue;
+					gi.drawImage(frame, 
+							r.x, r.y, r.x + r.width, r.y + r.height, 
+							r.x, r.y, r.x + r.width, r.y + r.height, null);
+				}
+			}
+		} finally {
+			gi.dispose();
+		}
+		dirtyRegions.clear();
+		contentValid = true;
+	}
+
+	/**
+	 * @param gc
+	 * @param width
+	 * @param height
+	 * @return	Returns true, if the image has been created.
+	 */
+	private boolean createImage(GraphicsConfiguration gc, int width, int height) {
+		flush();
+		VolatileImage tmp = gc.createCompatibleVolatileImage(
+				width, height, Transparency.OPAQUE);
+		if (tmp==null || 
+				(requireAcceleration && !tmp.getCapabilities().isAccelerated())) {
+			logger.info("no accelerated volatile image available"); //$NON-NLS-1$
+			if (tmp!=null) tmp.flush();
+			unavailable = true;
+			return false;
+		}
+		image = tmp;
+		invalidate();
+		return true;
+	}
+
+	/**
+	 * @return	Returns true, if the frame is drawn from a VolatileImage.
+	 */
+	public boolean isActive() {
+		return image!=null && !unavailable;
+	}
+
+	/**
+	 * Releases the VolatileImage.
+	 */
+	public void flush() {
+		if (image!=null) {
+			image.flush();
+			image = null;
+		}
+		invalidate();
+	}
+}
@@ -33,10 +33,18 @@ import java.awt.Component;
 import java.awt.Dimension;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.Rectangle;
 import java.awt.RenderingHints;
 import java.awt.geom.AffineTransform;
+import java.awt.geom.Area;
 import java.awt.geom.NoninvertibleTransformException;
+import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
+import java.awt.image.WritableRaster;
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.util.ArrayList;
 import java.util.List;
 
 import javax.swing.JPanel;
@@ -44,6 +52,7 @@ import javax.swing.JPanel;
 import de.admadic.spiromat.Globals;
 import de.admadic.spiromat.log.Logger;
 import de.admadic.spiromat.model.AppModel;
+import de.admadic.spiromat.shapes.DetailScale;
 import de.admadic.spiromat.shapes.Drawable;
 import de.admadic.spiromat.util.PrimitiveTimerProbe;
 
@@ -58,18 +67,52 @@ public class SpiromatCanvas extends JPanel {
 	private static final long serialVersionUID = 1L;
 	final static Logger logger = Logger.getLogger(SpiromatCanvas.class);
 
-	// FIXME: performance: when tooltips disappear a complete repaint is done, that could be optimized with checking the clip region!
-	
 	private Dimension dimensionForTransform = null;
 	
 	private AffineTransform canvasTransform;	// the transformation to apply to all drawn shapes.
 
 	// FIXME: we might not need the backBuffer when we turn the volatileBackBuffer into the main backbuffer.
 	// the backbuffers are written to from outside the EDT, also these
-	// buffers have a size of Globals.MODEL_WIDTH x ..._HEIGHT.
+	// buffers have a size of bufferWidth x bufferHeight.
 	private BufferedImage stayingBackBuffer = null;
 	private BufferedImage volatileBackBuffer = null;
 	private boolean hasVirginBuffers = false;
+	// the transformation from model coordinates to back buffer pixels:
+	private AffineTransform bufferTransform = AffineTransform.getTranslateInstance(
+			Globals.MODEL_WIDTH/2, Globals.MODEL_HEIGHT/2);
+	private int bufferWidth = Globals.MODEL_WIDTH;
+	private int bufferHeight = Globals.MODEL_HEIGHT;
+	// true, if the back buffers have the device pixel size of the component:
+	private boolean deviceBuffers = false;
+	// the scale of the screen the device back buffers have been made for:
+	private double deviceScaleX = 0.0;
+	private double deviceScaleY = 0.0;
+	// the smallest detail scale the staying back buffer has been drawn with:
+	private double drawnDetailScale = 0.0;
+	// the Drawables of the last render call, for redrawing with more detail:
+	private List<Drawable> lastDrawables = null;
+	// the Drawables which have been drawn into the volatile back buffer:
+	private List<Drawable> renderedDrawables = new ArrayList<Drawable>();
+	// the regions of the volatile back buffer which have been changed by 
+	// the last render call, null if the complete buffer has been changed:
+	private List<Rectangle> damagedRegions = null;
+	// the distance by which the regions are enlarged for antialiasing:
+	final static int DAMAGE_MARGIN = 2;
+	// if false, the complete back buffer is updated on every render call:
+	private static boolean dirtyRegionTracking = true;
+
+	// the copy of the volatile back buffer for accelerated painting:
+	final private AcceleratedFrame acceleratedFrame = new AcceleratedFrame(true);
+
+	private static final String ACCELERATED_RENDERING_PROPNAME = "de.admadic.spiromat.ui.acceleratedRendering"; //$NON-NLS-1$
+	// if true, the back buffer is painted from a VolatileImage, if possible:
+	private static boolean acceleratedRendering = 
+		!"false".equals(System.getProperty(ACCELERATED_RENDERING_PROPNAME)); //$NON-NLS-1$
+
+	private static final String DEVICE_RESOLUTION_PROPNAME = "de.admadic.spiromat.ui.deviceResolution"; //$NON-NLS-1$
+	// if true, the back buffers have the device pixel size of the component:
+	private static boolean deviceResolution = 
+		"true".equals(System.getProperty(DEVICE_RESOLUTION_PROPNAME)); //$NON-NLS-1$
 
 	// the renderLock is used to protect data relevant for display:
 	private Object renderLock = new Object();
@@ -87,6 +130,16 @@ public class SpiromatCanvas extends JPanel {
 		this.setBackground(BGCOLOR);
 		this.setOpaque(true);
 		// this.setIgnoreRepaint(true);
+		// the back buffers follow the scale of the screen:
+		this.addPropertyChangeListener(
+				"graphicsConfiguration",  //$NON-NLS-1$
+				new PropertyChangeListener() {
+					public void propertyChange(PropertyChangeEvent evt) {
+						if (dimensionForTransform!=null && needUpdateForDevice()) {
+							updateForSizeChange();
+						}
+					}
+				});
 	}
 
 	/**
@@ -97,15 +150,19 @@ public class SpiromatCanvas extends JPanel {
 		logger.debug("creating new back buffers..."); //$NON-NLS-1$
 		synchronized (renderLock) {
 			PrimitiveTimerProbe tp1 = new PrimitiveTimerProbe(logger);
-			if (stayingBackBuffer==null) {
+			if (stayingBackBuffer==null || 
+					stayingBackBuffer.getWidth()!=bufferWidth || 
+					stayingBackBuffer.getHeight()!=bufferHeight) {
 				stayingBackBuffer = new BufferedImage(
-						Globals.MODEL_WIDTH, Globals.MODEL_HEIGHT, 
+						bufferWidth, bufferHeight, 
 						BufferedImage.TYPE_INT_RGB);
 			}
 			tp1.probeAndReset("created staying back buffer", PrimitiveTimerProbe.UNIT_US); //$NON-NLS-1$
-			if (volatileBackBuffer==null) {
+			if (volatileBackBuffer==null || 
+					volatileBackBuffer.getWidth()!=bufferWidth || 
+					volatileBackBuffer.getHeight()!=bufferHeight) {
 				volatileBackBuffer = new BufferedImage(
-						Globals.MODEL_WIDTH, Globals.MODEL_HEIGHT, 
+						bufferWidth, bufferHeight, 
 						BufferedImage.TYPE_INT_RGB);
 			}
 			tp1.probeAndReset("created volatile back buffer", PrimitiveTimerProbe.UNIT_US); //$NON-NLS-1$
@@ -114,8 +171,16 @@ public class SpiromatCanvas extends JPanel {
 				Graphics2D g = stayingBackBuffer.createGraphics();
 				tp1.probeAndReset("retrieved graphics", PrimitiveTimerProbe.UNIT_US); //$NON-NLS-1$
 				try {
+					if (deviceBuffers) {
+						// outside of the model area, like in paintComponent:
+						g.setColor(Color.WHITE);
+						g.fillRect(0, 0, bufferWidth, bufferHeight);
+					}
 					g.setColor(BGCOLOR);
-					g.fillRect(0, 0, Globals.MODEL_WIDTH, Globals.MODEL_HEIGHT);
+					g.transform(bufferTransform);
+					g.fill(new Rectangle2D.Double(
+							-Globals.MODEL_WIDTH/2, -Globals.MODEL_HEIGHT/2, 
+							Globals.MODEL_WIDTH, Globals.MODEL_HEIGHT));
 					tp1.probeAndReset("filled", PrimitiveTimerProbe.UNIT_US); //$NON-NLS-1$
 				} finally {
 					g.dispose();
@@ -146,7 +211,21 @@ public class SpiromatCanvas extends JPanel {
 			return true;
 		}
 		
-		return false;
+		return needUpdateForDevice();
+	}
+
+	/**
+	 * @return	Returns true, if the back buffers do not match the render 
+	 * 			mode or the scale of the screen anymore.
+	 */
+	boolean needUpdateForDevice() {
+		GraphicsConfiguration gc = getGraphicsConfiguration();
+		synchronized (renderLock) {
+			if (!isDeviceResolution() || gc==null) return deviceBuffers;
+			AffineTransform dt = gc.getDefaultTransform();
+			return !deviceBuffers || 
+				dt.getScaleX()!=deviceScaleX || dt.getScaleY()!=deviceScaleY;
+		}
 	}
 
 	/**
@@ -156,6 +235,84 @@ public class SpiromatCanvas extends JPanel {
 		logger.debug("update for size change..."); //$NON-NLS-1$
 		dimensionForTransform = new Dimension(this.getWidth(), this.getHeight());
 		updateTransformation();
+		// not inside updateTransformation, the lock order is renderLock, this:
+		if (!updateBufferGeometry()) {
+			redrawForDetailScale();
+		}
+	}
+
+	/**
+	 * Determines the transformation and the size of the back buffers for 
+	 * the current size of the component. If they have changed, the back 
+	 * buffers are reallocated and the Drawables of the last render call are 
+	 * drawn again.
+	 * 
+	 * @return	Returns true, if the back buffers have been reallocated.
+	 */
+	private boolean updateBufferGeometry() {
+		AffineTransform ct = getCanvasTransform();
+		GraphicsConfiguration gc = getGraphicsConfiguration();
+		int w = getWidth();
+		int h = getHeight();
+		synchronized (renderLock) {
+			boolean changed;
+			if (isDeviceResolution() && ct!=null && gc!=null && w>0 && h>0) {
+				// the scale of HiDPI screens:
+				AffineTransform dt = gc.getDefaultTransform();
+				AffineTransform t = AffineTransform.getScaleInstance(
+						dt.getScaleX(), dt.getScaleY());
+				t.concatenate(ct);
+				changed = setBufferGeometry(t, 
+						(int) Math.ceil(w * dt.getScaleX()), 
+						(int) Math.ceil(h * dt.getScaleY()), true);
+				deviceScaleX = dt.getScaleX();
+				deviceScaleY = dt.getScaleY();
+			} else {
+				changed = setBufferGeometry(
+						AffineTransform.getTranslateInstance(
+								Globals.MODEL_WIDTH/2, Globals.MODEL_HEIGHT/2), 
+						Globals.MODEL_WIDTH, Globals.MODEL_HEIGHT, false);
+			}
+			if (!changed) return false;
+			if (logger.isDebugEnabled()) 
+				logger.debug(
+						"reallocating back buffers: width=" + bufferWidth + //$NON-NLS-1$
+						" height=" + bufferHeight); //$NON-NLS-1$
+			createNewBackBuffers();
+			if (lastDrawables!=null) {
+				renderImpl(lastDrawables);
+			}
+		}
+		repaint(1);
+		return true;
+	}
+
+	/**
+	 * Sets the transformation from model coordinates to back buffer pixels
+	 * and the size of the back buffers. The back buffers are reallocated 
+	 * with the next call of createNewBackBuffers.
+	 * 
+	 * <b>Note: This method is not protected by a synchronized(renderLock)! Make
+	 * sure that the method calling it takes care of the protection!</b>
+	 * 
+	 * @param transform
+	 * @param width
+	 * @param height
+	 * @param device	true, if the back buffers are painted 1:1.
+	 * @return	Returns true, if the geometry has changed.
+	 */
+	boolean setBufferGeometry(
+			AffineTransform transform, int width, int height, boolean device) {
+		if (transform.equals(bufferTransform) && 
+				width==bufferWidth && height==bufferHeight && 
+				device==deviceBuffers) {
+			return false;
+		}
+		bufferTransform = transform;
+		bufferWidth = width;
+		bufferHeight = height;
+		deviceBuffers = device;
+		return true;
 	}
 
 	/**
@@ -191,6 +348,39 @@ public class SpiromatCanvas extends JPanel {
 		}
 	}
 
+	/**
+	 * @return	Returns the number of device pixels per model pixel or 0.0, 
+	 * 			if the transformation is not known yet.
+	 */
+	protected synchronized double getDetailScale() {
+		if (canvasTransform==null) return 0.0;
+		return Math.sqrt(Math.abs(canvasTransform.getDeterminant()));
+	}
+
+	/**
+	 * @return	Returns a copy of the canvas transformation or null, if it 
+	 * 			is not known yet.
+	 */
+	protected synchronized AffineTransform getCanvasTransform() {
+		if (canvasTransform==null) return null;
+		return new AffineTransform(canvasTransform);
+	}
+
+	/**
+	 * Redraws the back buffers, if the figures have been drawn with less 
+	 * detail than the current scale requires.
+	 */
+	private void redrawForDetailScale() {
+		synchronized (renderLock) {
+			if (lastDrawables==null || drawnDetailScale==0.0) return;
+			if (getDetailScale() <= drawnDetailScale) return;
+			logger.debug("redrawing for larger detail scale"); //$NON-NLS-1$
+			createNewBackBuffers();
+			renderImpl(lastDrawables);
+		}
+		repaint(1);
+	}
+
 	/**
 	 * 
 	 * @see java.awt.Container#doLayout()
@@ -225,26 +415,27 @@ public class SpiromatCanvas extends JPanel {
 			Graphics2D gb = (Graphics2D) g.create();
 			try {
 				gb.setPaintMode();
-				gb.setClip(0, 0, width, height);
+				// only the clip needs to be painted (e.g. when a tooltip 
+				// disappears or after a render call):
+				Rectangle clip = gb.getClipBounds();
+				if (clip==null) {
+					clip = new Rectangle(0, 0, width, height);
+				}
 				gb.setColor(Color.WHITE);
-				gb.fillRect(0, 0, width, height);
+				gb.fillRect(clip.x, clip.y, clip.width, clip.height);
 
-				gb.transform(canvasTransform);
-
-				if (stayingBackBuffer!=null) {
-					gb.drawImage(
-							stayingBackBuffer, 
-							-Globals.MODEL_WIDTH/2, -Globals.MODEL_HEIGHT/2,
-							null);
-				} else {
-					if (logger.isDebugEnabled()) 
-						logger.debug("stayingBackBuffer==null"); //$NON-NLS-1$
-				}
-				if (volatileBackBuffer!=null) {
-					gb.drawImage(
-							volatileBackBuffer, 
-							-Globals.MODEL_WIDTH/2, -Globals.MODEL_HEIGHT/2,
-							null);
+				// the volatile back buffer contains a copy of the staying 
+				// back buffer, so it is sufficient to paint that:
+				AffineTransform ct = getCanvasTransform();
+				if (volatileBackBuffer!=null && ct!=null) {
+					gb.setTransform(getPaintTransform(gb.getTransform(), ct));
+					boolean drawn = isAcceleratedRendering() && 
+						acceleratedFrame.draw(
+								gb, getGraphicsConfiguration(), volatileBackBuffer,
+								0, 0);
+					if (!drawn) {
+						gb.drawImage(volatileBackBuffer, 0, 0, null);
+					}
 				} else {
 					if (logger.isDebugEnabled()) 
 						logger.debug("volatileBackBuffer==null"); //$NON-NLS-1$
@@ -255,6 +446,43 @@ public class SpiromatCanvas extends JPanel {
 		}
 	}
 
+	/**
+	 * Determines the transformation for painting the back buffer. Back 
+	 * buffers in device resolution are painted 1:1 (as long as the 
+	 * component stays on the same screen).
+	 * 
+	 * <b>Note: This method is not protected by a synchronized(renderLock)! Make
+	 * sure that the method calling it takes care of the protection!</b>
+	 * 
+	 * @param deviceTransform	The transformation of the component's Graphics.
+	 * @param ct	The canvas transformation.
+	 * @return	Returns the transformation from back buffer pixels to device
+	 * 			pixels.
+	 */
+	private AffineTransform getPaintTransform(
+			AffineTransform deviceTransform, AffineTransform ct) {
+		AffineTransform t = new AffineTransform(deviceTransform);
+		t.concatenate(ct);
+		try {
+			t.concatenate(bufferTransform.createInverse());
+		} catch (NoninvertibleTransformException e) {
+			// the buffer geometry is only set up for a visible component:
+			logger.error("buffer transformation not invertible"); //$NON-NLS-1$
+			return t;
+		}
+		final double eps = 1e-6;
+		if (deviceBuffers && 
+				Math.abs(t.getScaleX() - 1.0)<eps && 
+				Math.abs(t.getScaleY() - 1.0)<eps && 
+				Math.abs(t.getShearX())<eps && 
+				Math.abs(t.getShearY())<eps) {
+			// avoid any interpolation:
+			t = AffineTransform.getTranslateInstance(
+					Math.rint(t.getTranslateX()), Math.rint(t.getTranslateY()));
+		}
+		return t;
+	}
+
 	/**
 	 * Prepares the render capabilities.
 	 */
@@ -287,17 +515,64 @@ public class SpiromatCanvas extends JPanel {
 
 	/**
 	 * Renders the canvas with its registered Drawables.
-	 * Note: right now it simply issues a repaint(1). Thus it can be called
-	 * from outside the EDT.
+	 * Note: it only issues a repaint for the changed area. Thus it can be 
+	 * called from outside the EDT.
 	 * @param drawables 
 	 */
 	public void render(List<Drawable> drawables) {
 		logger.debug("rendering (and repaint'ing)..."); //$NON-NLS-1$
+		Rectangle area;
 		// we need to protect renderImpl.
 		synchronized (renderLock) {
+			// the caller's list may change while it is kept for re-rendering:
+			lastDrawables = new ArrayList<Drawable>(drawables);
 			renderImpl(drawables);
+			area = getRepaintArea();
+		}
+		if (area==null) {
+			repaint(1);
+		} else if (!area.isEmpty()) {
+			repaint(1, area.x, area.y, area.width, area.height);
+		}
+	}
+
+	/**
+	 * Determines the area of the component which shows the regions changed 
+	 * by the last renderImpl call.
+	 * 
+	 * <b>Note: This method is not protected by a synchronized(renderLock)! Make
+	 * sure that the method calling it takes care of the protection!</b>
+	 * 
+	 * @return	Returns the area in component coordinates (empty, if nothing 
+	 * 			has changed) or null, if the complete component needs to be 
+	 * 			repainted.
+	 */
+	Rectangle getRepaintArea() {
+		if (damagedRegions==null) return null;
+		if (damagedRegions.isEmpty()) return new Rectangle();
+		Rectangle region = null;
+		for (Rectangle r : damagedRegions) {
+			region = (region==null) ? new Rectangle(r) : region.union(r);
+		}
+		try {
+			return toComponentArea(bufferTransform.createInverse()
+					.createTransformedShape(region).getBounds2D());
+		} catch (NoninvertibleTransformException e) {
+			return null;
 		}
-		repaint(1);
+	}
+
+	/**
+	 * @param region	The region in model coordinates.
+	 * @return	Returns the area of the component which shows the region or 
+	 * 			null, if the transformation is not known yet.
+	 */
+	protected synchronized Rectangle toComponentArea(Rectangle2D region) {
+		if (canvasTransform==null) return null;
+		Rectangle area = canvasTransform.createTransformedShape(region).getBounds();
+		// the scaled image may blend with the neighboring pixels:
+		area.grow(1, 1);
+		return area.intersection(new Rectangle(0, 0, getWidth(), getHeight()));
 	}
 
 	/**
@@ -317,11 +592,22 @@ public class SpiromatCanvas extends JPanel {
 			return;
 		}
 
+		// back buffers in device resolution define the detail themselves:
+		double detailScale = deviceBuffers ? 
+				Math.sqrt(Math.abs(bufferTransform.getDeterminant())) : 
+				getDetailScale();
+		// Drawables which are gone cannot report their regions:
+		boolean fullCopy = hasVirginBuffers || !isDirtyRegionTracking() || 
+			!drawables.equals(renderedDrawables);
+		List<Rectangle> damage = new ArrayList<Rectangle>();
 		if (hasVirginBuffers) {
 			hasVirginBuffers = false;
+			drawnDetailScale = detailScale;
 			for (Drawable d : drawables) {
 				d.drawReset();
 			}
+		} else {
+			drawnDetailScale = Math.min(drawnDetailScale, detailScale);
 		}
 		
 		// this takes 60 us on my machine. As long as the drawing takes
@@ -335,28 +621,64 @@ public class SpiromatCanvas extends JPanel {
 						RenderingHints.KEY_ANTIALIASING,
 						RenderingHints.VALUE_ANTIALIAS_ON);
 			}
-			gs.translate(Globals.MODEL_WIDTH/2, Globals.MODEL_HEIGHT/2);
+			// the figures fill their prepared outlines for full redraws, 
+			// which matches drawing their lines only without normalization:
+			gs.setRenderingHint(
+					RenderingHints.KEY_STROKE_CONTROL, 
+					RenderingHints.VALUE_STROKE_PURE);
+			if (detailScale>0.0) {
+				// figures which are drawn completely may be simplified:
+				gs.setRenderingHint(
+						DetailScale.KEY_DETAIL_SCALE, 
+						Double.valueOf(detailScale));
+			}
+			gs.transform(bufferTransform);
 			for (Drawable d : drawables) {
 				if (logger.isDebugEnabled()) logger.debug("drawStayingParts: #=" + d); //$NON-NLS-1$
 				d.drawStayingParts(gs);
+				addDamage(damage, d.getStayingDamage());
 			}
 		} finally {
 			gs.dispose();
 		}
 
+		// the changed volatile parts are removed from where they have been 
+		// and drawn to where they are now:
+		for (Drawable d : drawables) {
+			addDamage(damage, d.getVolatileDamage());
+		}
+		renderedDrawables = new ArrayList<Drawable>(drawables);
+
 		// CHECKME: performance: if a Graphics.drawImage is faster than a copyData, change that code
-		stayingBackBuffer.copyData(volatileBackBuffer.getRaster());
+		Area clip = null;
+		if (fullCopy) {
+			stayingBackBuffer.copyData(volatileBackBuffer.getRaster());
+			damagedRegions = null;
+		} else {
+			clip = new Area();
+			WritableRaster raster = volatileBackBuffer.getRaster();
+			for (Rectangle r : damage) {
+				stayingBackBuffer.copyData(raster.createWritableChild(
+						r.x, r.y, r.width, r.height, r.x, r.y, null));
+				clip.add(new Area(r));
+			}
+			damagedRegions = damage;
+		}
 		
 		// this takes 60 us on my machine. As long as the drawing takes
 		// about 6 ms and more, we can keep it inside the loop:
 		Graphics2D gv = volatileBackBuffer.createGraphics();
 		try {
+			if (clip!=null) {
+				// everything outside is up to date already:
+				gv.setClip(clip);
+			}
 			if (AppModel.getInstance().getAntialiasing()) {
 				gv.setRenderingHint(
 						RenderingHints.KEY_ANTIALIASING,
 						RenderingHints.VALUE_ANTIALIAS_ON);
 			}
-			gv.translate(Globals.MODEL_WIDTH/2, Globals.MODEL_HEIGHT/2);
+			gv.transform(bufferTransform);
 			for (Drawable d : drawables) {
 				if (logger.isDebugEnabled()) logger.debug("drawVolatileParts: #=" + d); //$NON-NLS-1$
 				d.drawVolatileParts(gv);
@@ -364,6 +686,93 @@ public class SpiromatCanvas extends JPanel {
 		} finally {
 			gv.dispose();
 		}
+		// only the changed regions need to be uploaded to the copy:
+		acceleratedFrame.invalidate(damagedRegions);
+	}
+
+	/**
+	 * Converts the region from model coordinates to back buffer pixels and
+	 * adds it to the list, if it touches the back buffer.
+	 * 
+	 * @param list
+	 * @param region	The region in model coordinates or null.
+	 */
+	private void addDamage(List<Rectangle> list, Rectangle2D region) {
+		if (region==null) return;
+		Rectangle2D b = bufferTransform.createTransformedShape(region).getBounds2D();
+		int x0 = (int) Math.floor(b.getMinX()) - DAMAGE_MARGIN;
+		int y0 = (int) Math.floor(b.getMinY()) - DAMAGE_MARGIN;
+		int x1 = (int) Math.ceil(b.getMaxX()) + DAMAGE_MARGIN;
+		int y1 = (int) Math.ceil(b.getMaxY()) + DAMAGE_MARGIN;
+		Rectangle r = new Rectangle(x0, y0, x1 - x0, y1 - y0).intersection(
+				new Rectangle(0, 0, bufferWidth, bufferHeight));
+		if (!r.isEmpty()) {
+			list.add(r);
+		}
+	}
+
+	/**
+	 * @return	Returns the volatile back buffer (for testing).
+	 */
+	BufferedImage getVolatileBackBuffer() {
+		return volatileBackBuffer;
+	}
+
+	/**
+	 * @return	Returns true, if only the changed regions of the back 
+	 * 			buffer are updated.
+	 */
+	public static boolean isDirtyRegionTracking() {
+		return dirtyRegionTracking;
+	}
+
+	/**
+	 * @param dirtyRegionTracking	If true, only the changed regions of 
+	 * 								the back buffer are updated.
+	 */
+	public static void setDirtyRegionTracking(boolean dirtyRegionTracking) {
+		SpiromatCanvas.dirtyRegionTracking = dirtyRegionTracking;
+	}
+
+	/**
+	 * @return	Returns true, if the back buffer is painted from a 
+	 * 			VolatileImage (if the graphics device supports that).
+	 */
+	public static boolean isAcceleratedRendering() {
+		return acceleratedRendering;
+	}
+
+	/**
+	 * Enables or disables painting the back buffer from a VolatileImage.
+	 * This can be set with the system property 
+	 * <code>de.admadic.spiromat.ui.acceleratedRendering</code> too.
+	 * 
+	 * @param acceleratedRendering
+	 */
+	public static void setAcceleratedRendering(boolean acceleratedRendering) {
+		SpiromatCanvas.acceleratedRendering = acceleratedRendering;
+	}
+
+	/**
+	 * @return	Returns true, if the back buffers have the device pixel size 
+	 * 			of the component.
+	 */
+	public static boolean isDeviceResolution() {
+		return deviceResolution;
+	}
+
+	/**
+	 * Enables or disables back buffers in the device pixel size of the 
+	 * component (including the scale of HiDPI screens). If disabled (the 
+	 * default), the back buffers have the model size and are scaled for 
+	 * painting. The setting is applied with the next paint of a canvas.
+	 * This can be set with the system property 
+	 * <code>de.admadic.spiromat.ui.deviceResolution</code> too.
+	 * 
+	 * @param deviceResolution
+	 */
+	public static void setDeviceResolution(boolean deviceResolution) {
+		SpiromatCanvas.deviceResolution = deviceResolution;
 	}
 
 	/**
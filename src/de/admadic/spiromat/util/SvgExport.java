@@ -80,6 +80,8 @@ public class SvgExport {
 			FigureView fv = new FigureView(fs);
 			fv.setVisible(true);
 			fv.setIgnoreActiveStatus(true);
+			// write curves instead of a huge number of line segments:
+			fv.setUseBezierPath(true);
 			figureViews.add(fv);
 		}
 
@@ -0,0 +1,73 @@
+/**
+ *
+ * #license-begin#
+ * MIT License
+ *
+ * Copyright (c) 2005 - 2022 admaDIC GbR - http://www.admadic.de/
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * #license-end#
+ *
+ * $Id$ 
+ */
+package de.admadic.spiromat.math;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * @author Rainer Schwarze
+ *
+ */
+public class CenterTrackTest {
+
+	/**
+	 * Test method for {@link CenterTrack#calculateFigurePoints}. The same 
+	 * track is used for several pen hole positions.
+	 */
+	@Test
+	public void testCalculateFigurePoints() {
+		final double deltaPhi = Math.PI * 2 / 50;
+		CenterTrack ct = new CenterTrack(485, 445, deltaPhi, -1.05, 20.3);
+		assertEquals("count", 2 + 170, ct.getCount());
+		assertTrue(ct.isValidFor(485, 445, deltaPhi, -1.05, 20.3));
+		assertFalse(ct.isValidFor(485, 445, deltaPhi, -1.05, 20.4));
+
+		double [] xs = new double[ct.getCount() + 1];
+		double [] ys = new double[ct.getCount() + 1];
+		for (double lambda = 0.0; lambda <= 1.0; lambda += 0.25) {
+			SpiroMath sm = new SpiroMath(485, 445, lambda);
+			ct.calculateFigurePoints(lambda, xs, ys, 1);
+			for (int i=0; i<ct.getCount(); i++) {
+				double phi;
+				if (i==0) {
+					phi = -1.05;
+				} else if (i==ct.getCount() - 1) {
+					phi = 20.3;
+				} else {
+					phi = (-9 + i) * deltaPhi;
+				}
+				sm.calculate(phi);
+				assertEquals("x at " + i, sm.getFigureX(), xs[i + 1], 1e-9);
+				assertEquals("y at " + i, sm.getFigureY(), ys[i + 1], 1e-9);
+			}
+		}
+	}
+}
@@ -0,0 +1,112 @@
+/**
+ *
+ * #license-begin#
+ * MIT License
+ *
+ * Copyright (c) 2005 - 2022 admaDIC GbR - http://www.admadic.de/
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * #license-end#
+ *
+ * $Id$ 
+ */
+package de.admadic.spiromat.math;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * @author Rainer Schwarze
+ *
+ */
+public class GearChainMathTest {
+
+	/**
+	 * A chain with a single inner gear must match SpiroMath.
+	 */
+	@Test
+	public void testSingleGear() {
+		GearChainMath gcm = new GearChainMath(97, new int[]{89}, new boolean[]{false}, 0.9);
+		SpiroMath sm = new SpiroMath(97, 89, 0.9);
+		assertEquals("rounds", Util.calculateRounds(97, 89), gcm.calculateRounds());
+		for (double phi = -10.0; phi < 100.0; phi += 0.37) {
+			gcm.calculate(phi);
+			sm.calculate(phi);
+			assertEquals("x at " + phi, sm.getFigureX(), gcm.getFigureX(), 1e-9);
+			assertEquals("y at " + phi, sm.getFigureY(), gcm.getFigureY(), 1e-9);
+		}
+	}
+
+	/**
+	 * Test method for {@link GearChainMath#calculateRounds()}.
+	 */
+	@Test
+	public void testCalculateRounds() {
+		GearChainMath gcm;
+		gcm = new GearChainMath(96, new int[]{60}, new boolean[]{true}, 0.5);
+		assertEquals("epitrochoid", 5, gcm.calculateRounds());
+		gcm = new GearChainMath(100, new int[]{60, 25}, new boolean[]{false, false}, 0.8);
+		do_testClosed(gcm);
+		gcm = new GearChainMath(100, new int[]{45, 20, 7}, new boolean[]{false, true, false}, 1.0);
+		do_testClosed(gcm);
+	}
+
+	/**
+	 * Test method for {@link GearChainMath#calculateFigurePoints}.
+	 */
+	@Test
+	public void testCalculateFigurePoints() {
+		GearChainMath gcm = new GearChainMath(
+				100, new int[]{45, 20, 7}, new boolean[]{false, true, false}, 0.7);
+		int count = 50 * 1000;
+		double step = Math.PI * 2 / 50;
+		double [] xs = new double[count];
+		double [] ys = new double[count];
+		gcm.calculateFigurePoints(-3.0, step, count, xs, ys, 0);
+		for (int i=0; i<count; i++) {
+			gcm.calculate(-3.0 + i*step);
+			assertEquals("x at " + i, gcm.getFigureX(), xs[i], 1e-6);
+			assertEquals("y at " + i, gcm.getFigureY(), ys[i], 1e-6);
+		}
+	}
+
+	/**
+	 * Checks that the curve closes after the calculated number of rounds
+	 * and that no phasor has a fractional frequency multiple.
+	 * 
+	 * @param gcm
+	 */
+	private void do_testClosed(GearChainMath gcm) {
+		long rounds = gcm.calculateRounds();
+		for (int k=0; k<gcm.getPhasorCount(); k++) {
+			double turns = gcm.getFrequency(k) * rounds;
+			assertEquals("turns of phasor " + k, Math.rint(turns), turns, 1e-6);
+		}
+		double span = rounds * Math.PI * 2;
+		for (double phi = 0.0; phi < 7.0; phi += 0.5) {
+			gcm.calculate(phi);
+			double x = gcm.getFigureX();
+			double y = gcm.getFigureY();
+			gcm.calculate(phi + span);
+			assertEquals("x at " + phi, x, gcm.getFigureX(), 1e-6);
+			assertEquals("y at " + phi, y, gcm.getFigureY(), 1e-6);
+		}
+	}
+}
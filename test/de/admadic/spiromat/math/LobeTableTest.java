@@ -0,0 +1,83 @@
+/**
+ *
+ * #license-begin#
+ * MIT License
+ *
+ * Copyright (c) 2005 - 2022 admaDIC GbR - http://www.admadic.de/
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * #license-end#
+ *
+ * $Id$ 
+ */
+package de.admadic.spiromat.math;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * @author Rainer Schwarze
+ *
+ */
+public class LobeTableTest {
+
+	/**
+	 * Test method for {@link LobeTable#LobeTable(int, int, double, double)}.
+	 */
+	@Test
+	public void testLobeGeometry() {
+		LobeTable lt = new LobeTable(485, 445, 0.9, Math.PI * 2 / 50);
+		assertEquals("lobe count", 97, lt.getLobeCount());
+		assertEquals("lobe span", 
+				Math.PI * 2 * 445 / 485, 
+				lt.getPointsPerLobe() * lt.getDeltaPhi(), 1e-12);
+		assertTrue("step", lt.getDeltaPhi() <= Math.PI * 2 / 50);
+	}
+
+	/**
+	 * Test method for {@link LobeTable#calculateGridPoints}.
+	 */
+	@Test
+	public void testCalculateGridPoints() {
+		do_testAgainstCalculate(480, 300, 0.8);
+		do_testAgainstCalculate(485, 445, 0.95);
+		do_testAgainstCalculate(500, 5, 1.0);
+	}
+
+	/**
+	 * @param rBig
+	 * @param rSmall
+	 * @param lambda
+	 */
+	private void do_testAgainstCalculate(int rBig, int rSmall, double lambda) {
+		LobeTable lt = new LobeTable(rBig, rSmall, lambda, Math.PI * 2 / 50);
+		SpiroMath sm = new SpiroMath(rBig, rSmall, lambda);
+		int count = 3 * lt.getLobeCount() * lt.getPointsPerLobe();
+		double [] xs = new double[count];
+		double [] ys = new double[count];
+		long kStart = -count / 2;
+		lt.calculateGridPoints(kStart, 1, count, xs, ys, 0);
+		for (int i=0; i<count; i++) {
+			sm.calculate((kStart + i) * lt.getDeltaPhi());
+			assertEquals("x at " + i, sm.getFigureX(), xs[i], 1e-6);
+			assertEquals("y at " + i, sm.getFigureY(), ys[i], 1e-6);
+		}
+	}
+}
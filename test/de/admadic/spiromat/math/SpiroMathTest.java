@@ -0,0 +1,167 @@
+/**
+ *
+ * #license-begin#
+ * MIT License
+ *
+ * Copyright (c) 2005 - 2022 admaDIC GbR - http://www.admadic.de/
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * #license-end#
+ *
+ * $Id$ 
+ */
+package de.admadic.spiromat.math;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * @author Rainer Schwarze
+ *
+ */
+public class SpiroMathTest {
+	/** maximum deviation from the exact calculation in model pixels */
+	final static double PIXEL_TOLERANCE = 1e-6;
+
+	/**
+	 * Test method for {@link SpiroMath#calculateFigurePoints} in the 
+	 * exact mode.
+	 */
+	@Test
+	public void testCalculateFigurePointsExact() {
+		SpiroMath sm = new SpiroMath(480, 300, 0.8);
+		do_testAgainstCalculate(sm, 0.0, Math.PI * 2 / 50, 1000);
+		do_testAgainstCalculate(sm, 1.3, -Math.PI * 2 / 50, 1000);
+	}
+
+	/**
+	 * Test method for {@link SpiroMath#calculateFigurePoints} in the 
+	 * rotator mode. The sequence covers a few thousand rounds.
+	 */
+	@Test
+	public void testCalculateFigurePointsRotator() {
+		SpiroMath sm = new SpiroMath(485, 445, 0.95);
+		sm.setGenerationMode(SpiroMath.GenerationMode.ROTATOR);
+		do_testAgainstCalculate(sm, 0.0, Math.PI * 2 / 50, 50 * 3000);
+		do_testAgainstCalculate(sm, -7.1, -Math.PI * 2 / 50, 50 * 3000);
+		do_testAgainstCalculate(sm, 0.5, 0.001, 10);
+	}
+
+	/**
+	 * Test method for {@link SpiroMath#calculateFigurePoints} in the 
+	 * vector mode. If the VM has the jdk.incubator.vector module (like in 
+	 * the test target of the build), the vector kernel must be used, 
+	 * otherwise the scalar fallback is tested.
+	 */
+	@Test
+	public void testCalculateFigurePointsVector() {
+		if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) { //$NON-NLS-1$
+			assertTrue("vector kernel", SpiroMath.isVectorKernelAvailable()); //$NON-NLS-1$
+		}
+		SpiroMath sm = new SpiroMath(485, 445, 0.95);
+		sm.setGenerationMode(SpiroMath.GenerationMode.VECTOR);
+		do_testAgainstCalculate(sm, 0.0, Math.PI * 2 / 50, 50 * 100);
+		do_testAgainstCalculate(sm, -7.1, -Math.PI * 2 / 50, 50 * 100 + 3);
+		do_testAgainstCalculate(sm, 0.5, 0.001, 3);
+	}
+
+	/**
+	 * Test method for {@link SpiroMath#calculateCirclePoints}.
+	 */
+	@Test
+	public void testCalculateCirclePoints() {
+		final int count = 103;
+		double [] xs = new double[count + 2];
+		double [] ys = new double[count + 2];
+		for (double radius : new double [] { 1.0, 40.0, -3.5 }) {
+			SpiroMath.calculateCirclePoints(radius, -2.1, 0.13, count, xs, ys, 2);
+			for (int i=0; i<count; i++) {
+				double phi = -2.1 + i*0.13;
+				assertEquals("x at " + i, radius*Math.cos(phi), xs[i + 2], PIXEL_TOLERANCE); //$NON-NLS-1$
+				assertEquals("y at " + i, radius*Math.sin(phi), ys[i + 2], PIXEL_TOLERANCE); //$NON-NLS-1$
+			}
+		}
+	}
+
+	/**
+	 * Test method for {@link SpiroMath#calculateAdaptiveStep}. The distance 
+	 * of the curve's midpoint from the chord must stay close to the 
+	 * tolerance (the step is based on a local estimation).
+	 */
+	@Test
+	public void testCalculateAdaptiveStep() {
+		final double tolerance = 0.25;
+		SpiroMath sm = new SpiroMath(480, 300, 0.95);
+		for (double phi = 0.0; phi < 10*Math.PI; phi += 0.05) {
+			double step = sm.calculateAdaptiveStep(phi, tolerance, 1e-6, 1.0);
+			sm.calculate(phi);
+			double x0 = sm.getFigureX();
+			double y0 = sm.getFigureY();
+			sm.calculate(phi + step);
+			double x1 = sm.getFigureX();
+			double y1 = sm.getFigureY();
+			sm.calculate(phi + step/2);
+			double xm = sm.getFigureX();
+			double ym = sm.getFigureY();
+			double len = Math.hypot(x1 - x0, y1 - y0);
+			double dist = Math.abs((x1 - x0)*(y0 - ym) - (x0 - xm)*(y1 - y0)) / len;
+			assertTrue("deviation at " + phi + " is " + dist, dist < 2*tolerance);
+		}
+	}
+
+	/**
+	 * Test method for {@link SpiroMath#calculateDerivative}, compared
+	 * to the central difference quotient.
+	 */
+	@Test
+	public void testCalculateDerivative() {
+		final double h = 1e-5;
+		SpiroMath sm = new SpiroMath(480, 300, 0.95);
+		for (double phi = 0.0; phi < 10*Math.PI; phi += 0.1) {
+			sm.calculate(phi + h);
+			double x1 = sm.getFigureX();
+			double y1 = sm.getFigureY();
+			sm.calculate(phi - h);
+			double x0 = sm.getFigureX();
+			double y0 = sm.getFigureY();
+			sm.calculateDerivative(phi);
+			assertEquals((x1 - x0) / (2*h), sm.getFigureDX(), 1e-4);
+			assertEquals((y1 - y0) / (2*h), sm.getFigureDY(), 1e-4);
+		}
+	}
+
+	/**
+	 * @param sm
+	 * @param phiStart
+	 * @param phiStep
+	 * @param count
+	 */
+	private void do_testAgainstCalculate(
+			SpiroMath sm, double phiStart, double phiStep, int count) {
+		double [] xs = new double[count + 3];
+		double [] ys = new double[count + 3];
+		sm.calculateFigurePoints(phiStart, phiStep, count, xs, ys, 3);
+		for (int i=0; i<count; i++) {
+			sm.calculate(phiStart + i*phiStep);
+			assertEquals("x at " + i, sm.getFigureX(), xs[3 + i], PIXEL_TOLERANCE);
+			assertEquals("y at " + i, sm.getFigureY(), ys[3 + i], PIXEL_TOLERANCE);
+		}
+	}
+}
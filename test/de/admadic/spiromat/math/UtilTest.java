@@ -58,4 +58,15 @@ public class UtilTest {
 		assertEquals("test item 9", 20, Util.lcm(5, 4));
 	}
 
+	/**
+	 * Test method for {@link de.admadic.spiromat.math.Util#calculatePointCount(int, int, double)}.
+	 */
+	@Test
+	public void testCalculatePointCount() {
+		final double d = Math.PI * 2 / 50;
+		assertEquals("test item 0", 51, Util.calculatePointCount(10, 5, d));
+		assertEquals("test item 1", 151, Util.calculatePointCount(10, 3, d));
+		assertEquals("test item 2", 4951, Util.calculatePointCount(100, 99, d));
+		assertEquals("test item 3", 5, Util.calculatePointCount(2, 1, 2.0));
+	}
 }
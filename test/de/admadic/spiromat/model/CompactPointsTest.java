@@ -0,0 +1,118 @@
+/**
+ *
+ * #license-begin#
+ * MIT License
+ *
+ * Copyright (c) 2005 - 2022 admaDIC GbR - http://www.admadic.de/
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * #license-end#
+ *
+ * $Id$ 
+ */
+package de.admadic.spiromat.model;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import de.admadic.spiromat.math.SpiroMath;
+
+/**
+ * @author Rainer Schwarze
+ *
+ */
+public class CompactPointsTest {
+
+	/**
+	 * Test method for {@link CompactPoints#encode} and 
+	 * {@link CompactPoints#expand()}. The points must be restored up to the
+	 * rounding and need less than half of the bytes.
+	 */
+	@Test
+	public void testEncodeExpand() {
+		SpiroMath sm = new SpiroMath(485, 445, 0.95);
+		int count = 3000;
+		PointStore ps = new PointStore();
+		ps.ensureRange(-1000, count - 1000);
+		for (int i=0; i<count; i++) {
+			sm.calculate(i * Math.PI * 2 / 50);
+			ps.setPoint(i - 1000, (float) sm.getFigureX(), (float) sm.getFigureY());
+		}
+		CompactPoints cp = CompactPoints.encode(ps.getView(), -1000, count);
+		assertEquals(-1000, cp.getStartIndex());
+		assertEquals(count, cp.getPointCount());
+		assertTrue("bytes: " + cp.getByteCount(),  //$NON-NLS-1$
+				cp.getByteCount() < count * FigureModel.BYTES_PER_POINT / 2);
+
+		PointStoreView pv = cp.expand();
+		for (int i=-1000; i<count - 1000; i++) {
+			assertEquals(ps.getX(i), pv.getX(i), CompactPoints.QUANTUM / 2 + 1e-4);
+			assertEquals(ps.getY(i), pv.getY(i), CompactPoints.QUANTUM / 2 + 1e-4);
+		}
+
+		PointStore ps2 = new PointStore();
+		cp.expandInto(ps2);
+		for (int i=-1000; i<count - 1000; i++) {
+			assertEquals(pv.getX(i), ps2.getX(i), 0.0f);
+			assertEquals(pv.getY(i), ps2.getY(i), 0.0f);
+		}
+	}
+
+	/**
+	 * Test method for {@link FigureModel#compact()}. The snapshots must 
+	 * provide the points while compacted and the model must be extended 
+	 * like an uncompacted one.
+	 */
+	@Test
+	public void testFigureModel() {
+		FigureModel fm = new FigureModel(480, 300, 0.8);
+		FigureModel ref = new FigureModel(480, 300, 0.8);
+		fm.addPoints(-4.0);
+		fm.addPoints(9.0);
+		ref.addPoints(-4.0);
+		ref.addPoints(9.0);
+
+		fm.compact();
+		assertTrue(fm.isCompact());
+		FigureSnapshot snap = fm.getSnapshot();
+		assertTrue(snap.isCompact());
+		assertEquals(ref.getSnapshot().getStartIndex(), snap.getStartIndex());
+		assertEquals(ref.getSnapshot().getEndIndex(), snap.getEndIndex());
+		PointRange range = new PointRange();
+		snap.getRange(snap.getStartIndex(), snap.getPointCount(), range);
+		assertEquals(snap.getPointCount(), range.getPointCount());
+
+		// adding points within the interval does not expand:
+		fm.addPoints(1.0);
+		assertTrue(fm.isCompact());
+		fm.addPoints(12.0);
+		ref.addPoints(12.0);
+		assertFalse(fm.isCompact());
+
+		FigureSnapshot s1 = fm.getSnapshot();
+		FigureSnapshot s2 = ref.getSnapshot();
+		assertEquals(s2.getStartIndex(), s1.getStartIndex());
+		assertEquals(s2.getEndIndex(), s1.getEndIndex());
+		for (int i=s2.getStartIndex(); i<s2.getEndIndex(); i++) {
+			assertEquals(s2.getPoints().getX(i), s1.getPoints().getX(i), CompactPoints.QUANTUM);
+			assertEquals(s2.getPoints().getY(i), s1.getPoints().getY(i), CompactPoints.QUANTUM);
+		}
+	}
+}
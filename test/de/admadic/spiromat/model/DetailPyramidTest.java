@@ -0,0 +1,190 @@
+/**
+ *
+ * #license-begin#
+ * MIT License
+ *
+ * Copyright (c) 2005 - 2022 admaDIC GbR - http://www.admadic.de/
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * #license-end#
+ *
+ * $Id$ 
+ */
+package de.admadic.spiromat.model;
+
+import static org.junit.Assert.*;
+
+import java.awt.geom.Line2D;
+import java.awt.geom.PathIterator;
+import java.util.ArrayList;
+
+import org.junit.Test;
+
+import de.admadic.spiromat.math.SpiroMath;
+
+/**
+ * @author Rainer Schwarze
+ *
+ */
+public class DetailPyramidTest {
+
+	/**
+	 * Test method for {@link DetailPyramid#getLevelFor(double)}.
+	 */
+	@Test
+	public void testGetLevelFor() {
+		assertEquals(-1, DetailPyramid.getLevelFor(0.1));
+		assertEquals(0, DetailPyramid.getLevelFor(0.25));
+		assertEquals(0, DetailPyramid.getLevelFor(0.4));
+		assertEquals(2, DetailPyramid.getLevelFor(1.0));
+		assertEquals(DetailPyramid.LEVEL_COUNT - 1, DetailPyramid.getLevelFor(1000.0));
+	}
+
+	/**
+	 * Test method for {@link DetailPyramid#getLevel(int, PointRange)}. Every
+	 * point of the full polyline must be within the level's error of the 
+	 * simplified polyline and the levels must get smaller.
+	 */
+	@Test
+	public void testGetLevel() {
+		SpiroMath sm = new SpiroMath(480, 300, 0.8);
+		int count = 2000;
+		PointStore ps = new PointStore();
+		ps.ensureRange(-100, count - 100);
+		for (int i=0; i<count; i++) {
+			sm.calculate(i * Math.PI * 2 / 200);
+			ps.setPoint(i - 100, (float) sm.getFigureX(), (float) sm.getFigureY());
+		}
+		FigureSnapshot snap = new FigureSnapshot(
+				ps.getView(), null, -100, count - 100, 0, 
+				0.0, (count - 1) * Math.PI * 2 / 200, sm);
+		DetailPyramid dp = new DetailPyramid(snap);
+		assertTrue("valid", dp.isValidFor(snap)); //$NON-NLS-1$
+		assertTrue("valid for same range", dp.isValidFor(new FigureSnapshot( //$NON-NLS-1$
+				ps.getView(), null, -100, count - 100, 0, 
+				0.0, (count - 1) * Math.PI * 2 / 200, sm)));
+		assertFalse("valid for other generation", dp.isValidFor(new FigureSnapshot( //$NON-NLS-1$
+				ps.getView(), null, -100, count - 100, 1, 
+				0.0, (count - 1) * Math.PI * 2 / 200, sm)));
+		assertFalse("valid for other range", dp.isValidFor(new FigureSnapshot( //$NON-NLS-1$
+				ps.getView(), null, -100, count - 101, 0, 
+				0.0, (count - 2) * Math.PI * 2 / 200, sm)));
+		int lastCount = count;
+		for (int level=0; level<DetailPyramid.LEVEL_COUNT; level++) {
+			PointRange range = new PointRange();
+			dp.getLevel(level, range);
+			int levelCount = dp.getPointCount(level);
+			assertEquals(levelCount, range.getPointCount());
+			assertTrue("level " + level + " smaller", levelCount < lastCount);
+			lastCount = levelCount;
+
+			assertWithinError("level " + level, ps, -100, count, range, level); //$NON-NLS-1$
+		}
+	}
+
+	/**
+	 * Test method for {@link DetailPyramid#DetailPyramid(FigureSnapshot, DetailPyramid)}.
+	 * The levels of a pyramid are extended by the points which have been 
+	 * added at both ends, also over several pyramids.
+	 */
+	@Test
+	public void testExtendLevels() {
+		SpiroMath sm = new SpiroMath(480, 301, 0.8);	// does not repeat within the points
+		final double step = Math.PI * 2 / 200;
+		int count = 3000;
+		PointStore ps = new PointStore();
+		ps.ensureRange(-1000, count - 1000);
+		for (int i=0; i<count; i++) {
+			sm.calculate((i - 1000) * step);
+			ps.setPoint(i - 1000, (float) sm.getFigureX(), (float) sm.getFigureY());
+		}
+		final int level = 1;
+		int [][] ranges = { { 0, 500 }, { 0, 501 }, { -300, 900 }, { -1000, 2000 } };
+		DetailPyramid dp = null;
+		for (int [] r : ranges) {
+			FigureSnapshot snap = new FigureSnapshot(
+					ps.getView(), null, r[0], r[1], 0, 
+					r[0] * step, (r[1] - 1) * step, sm);
+			DetailPyramid last = dp;
+			dp = new DetailPyramid(snap, last);
+			PointRange range = new PointRange();
+			if (r[0]!=-300) {
+				// the level of the previous pyramid is handed on:
+				dp.getLevel(level, range);
+				assertWithinError("range " + r[0] + ".." + r[1], ps, r[0], r[1] - r[0], range, level); //$NON-NLS-1$ //$NON-NLS-2$
+				if (last!=null) {
+					DetailPyramid fresh = new DetailPyramid(snap);
+					int extended = dp.getPointCount(level);
+					int built = fresh.getPointCount(level);
+					assertTrue("extended " + extended + " vs. " + built,  //$NON-NLS-1$ //$NON-NLS-2$
+							extended <= built + 3*ranges.length);
+				}
+			}
+		}
+		// only the added points are read, the store has no others:
+		DetailPyramid base = new DetailPyramid(new FigureSnapshot(
+				ps.getView(), null, 0, 500, 0, 0.0, 499 * step, sm));
+		base.getLevel(level, new PointRange());
+		PointStore added = new PointStore();
+		added.ensureRange(0, 600);
+		for (int i=499; i<600; i++) {
+			added.setPoint(i, ps.getX(i), ps.getY(i));
+		}
+		DetailPyramid extended = new DetailPyramid(new FigureSnapshot(
+				added.getView(), null, 0, 600, 0, 0.0, 599 * step, sm), base);
+		PointRange range = new PointRange();
+		extended.getLevel(level, range);
+		assertWithinError("added points", ps, 0, 600, range, level); //$NON-NLS-1$
+
+		// another generation is not extended:
+		FigureSnapshot other = new FigureSnapshot(
+				ps.getView(), null, -1000, 2000, 1, -1000 * step, 1999 * step, sm);
+		assertFalse(dp.isPartOf(other));
+		assertTrue(dp.isPartOf(new FigureSnapshot(
+				ps.getView(), null, -1000, 2000, 0, -1000 * step, 1999 * step, sm)));
+	}
+
+	/**
+	 * Asserts that every point of the full polyline is within the level's
+	 * error of the simplified polyline.
+	 */
+	private static void assertWithinError(
+			String msg, PointStore ps, int from, int count, 
+			PointRange range, int level) {
+		ArrayList<Line2D> lines = new ArrayList<Line2D>();
+		float [] c = new float[6];
+		float xl = 0.0f;
+		float yl = 0.0f;
+		for (PathIterator it = range.getPathIterator(null); !it.isDone(); it.next()) {
+			if (it.currentSegment(c)==PathIterator.SEG_LINETO) {
+				lines.add(new Line2D.Float(xl, yl, c[0], c[1]));
+			}
+			xl = c[0];
+			yl = c[1];
+		}
+		double error = DetailPyramid.getLevelError(level);
+		for (int i=0; i<count; i++) {
+			double min = Double.MAX_VALUE;
+			for (Line2D line : lines) {
+				min = Math.min(min, line.ptSegDist(ps.getX(from + i), ps.getY(from + i)));
+			}
+			assertTrue(msg + " point " + i, min <= error + 1e-3); //$NON-NLS-1$
+		}
+	}
+}
@@ -28,6 +28,8 @@
  */
 package de.admadic.spiromat.model;
 
+import static org.junit.Assert.*;
+
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
@@ -80,6 +82,25 @@ public class DocModelTest {
 		/* nothing */
 	}
 
+	/**
+	 * Test method for {@link DocModel#setDefaults()}. The models of the 
+	 * dropped figures are released.
+	 */
+	@Test
+	public void testSetDefaultsReleasesModels() {
+		DocModel docModel = new DocModel();
+		docModel.setDefaults();
+		FigureSpec fs = docModel.getActiveFigureSpec();
+		FigureModel fm = fs.getFigureModel();
+		fs.initFullInterval();
+		assertTrue("points", fm.getSnapshot().getPointCount()>0); //$NON-NLS-1$
+
+		docModel.setDefaults();
+		assertNull("model", fs.peekFigureModel()); //$NON-NLS-1$
+		assertEquals("points", 0, fm.getSnapshot().getPointCount()); //$NON-NLS-1$
+		assertNotSame(fs, docModel.getActiveFigureSpec());
+	}
+
 	/**
 	 * Test method for graphics export.
 	 */
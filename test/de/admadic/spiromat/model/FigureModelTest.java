@@ -0,0 +1,240 @@
+/**
+ *
+ * #license-begin#
+ * MIT License
+ *
+ * Copyright (c) 2005 - 2022 admaDIC GbR - http://www.admadic.de/
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * #license-end#
+ *
+ * $Id$ 
+ */
+package de.admadic.spiromat.model;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import de.admadic.spiromat.math.SpiroMath;
+
+/**
+ * @author Rainer Schwarze
+ *
+ */
+public class FigureModelTest {
+	// the figure 480/300/0.8 stays in the annulus 60..420 and the points 
+	// are at most about 41 model pixels apart:
+	final static double R_MIN = 60.0 - 0.01;
+	final static double R_MAX = 420.0 + 0.01;
+	final static double MAX_DISTANCE = 45.0;
+
+	/**
+	 * Test method for {@link FigureModel#getSnapshot()}. One thread adds 
+	 * points at both ends (and replaces them from time to time), while 
+	 * other threads read the snapshots without locking. A torn read would 
+	 * show up as points which have not been written yet (0,0), as gaps 
+	 * between neighbouring points or as points which change within one 
+	 * generation.
+	 * 
+	 * @throws InterruptedException 
+	 */
+	@Test
+	public void testConcurrentSnapshots() throws InterruptedException {
+		final FigureModel model = new FigureModel(480, 300, 0.8);
+		final String [] failure = new String[1];
+		final boolean [] done = new boolean[1];
+
+		Thread writer = new Thread() {
+			@Override
+			public void run() {
+				Random rnd = new Random(1);
+				for (int cycle=0; cycle<300; cycle++) {
+					if (cycle % 7 == 3) {
+						model.setLambda(0.8);
+					} else {
+						model.clear();
+					}
+					double lo = 0.0;
+					double hi = 0.0;
+					for (int i=0; i<100; i++) {
+						if (rnd.nextBoolean()) {
+							hi += rnd.nextDouble() * 0.3;
+							model.addPoints(hi);
+						} else {
+							lo -= rnd.nextDouble() * 0.3;
+							model.addPoints(lo);
+						}
+					}
+				}
+				synchronized (done) {
+					done[0] = true;
+				}
+			}
+		};
+
+		Thread [] readers = new Thread[3];
+		for (int r=0; r<readers.length; r++) {
+			readers[r] = new Thread() {
+				@Override
+				public void run() {
+					FigureSnapshot last = null;
+					while (true) {
+						synchronized (done) {
+							if (done[0] || failure[0]!=null) break;
+						}
+						FigureSnapshot snap = model.getSnapshot();
+						String msg = checkSnapshot(snap, last);
+						if (msg!=null) {
+							synchronized (done) {
+								failure[0] = msg;
+							}
+							break;
+						}
+						last = snap;
+					}
+				}
+			};
+		}
+
+		for (Thread t : readers) t.start();
+		writer.start();
+		writer.join();
+		for (Thread t : readers) t.join();
+		assertNull(failure[0], failure[0]);
+
+		FigureSnapshot snap = model.getSnapshot();
+		assertNull(checkSnapshot(snap, null));
+		assertTrue(snap.getPointCount()>0);
+	}
+
+	/**
+	 * Test method for {@link FigureModel#addPoints(double)} with adaptive 
+	 * sampling. Extending the points at either end must not repeat the 
+	 * point at the old end.
+	 */
+	@Test
+	public void testAdaptivePoints() {
+		FigureModel model = new FigureModel(480, 300, 0.8);
+		model.setAdaptiveTolerance(0.5);
+		double [] phis = { 0.7, 1.9, -0.4, 5.0, -3.3, 5.01 };
+		for (double phi : phis) {
+			assertTrue(model.addPoints(phi));
+		}
+		FigureSnapshot snap = model.getSnapshot();
+		PointStoreView pv = snap.getPoints();
+		SpiroMath sm = new SpiroMath(480, 300, 0.8);
+		sm.calculate(-3.3);
+		assertEquals("first x", sm.getFigureX(), pv.getX(snap.getStartIndex()), 1e-3); //$NON-NLS-1$
+		sm.calculate(5.01);
+		assertEquals("last x", sm.getFigureX(), pv.getX(snap.getEndIndex() - 1), 1e-3); //$NON-NLS-1$
+		for (int i=snap.getStartIndex() + 1; i<snap.getEndIndex(); i++) {
+			assertFalse("point " + i + " repeated",  //$NON-NLS-1$ //$NON-NLS-2$
+					pv.getX(i)==pv.getX(i - 1) && pv.getY(i)==pv.getY(i - 1));
+		}
+	}
+
+	/**
+	 * Test method for the parallel calculation of 
+	 * {@link FigureModel#addPoints(double)}. Appending and prepending runs 
+	 * of several chunks must give the points of the serial calculation, 
+	 * with and without LobeTable.
+	 */
+	@Test
+	public void testParallelPoints() {
+		final double [][] radii = { { 960, 601 }, { 960.5, 601.5 } };
+		final double [] phis = { 0.3, 2000.0, -1700.0 };
+		int oldThreshold = FigureModel.getParallelThreshold();
+		try {
+			for (double [] r : radii) {
+				FigureModel.setParallelThreshold(Integer.MAX_VALUE);
+				FigureModel serial = new FigureModel(r[0], r[1], 0.8);
+				FigureModel.setParallelThreshold(FigureModel.PARALLEL_CHUNK_SIZE / 4);
+				FigureModel parallel = new FigureModel(r[0], r[1], 0.8);
+				for (double phi : phis) {
+					FigureModel.setParallelThreshold(Integer.MAX_VALUE);
+					serial.addPoints(phi);
+					FigureModel.setParallelThreshold(FigureModel.PARALLEL_CHUNK_SIZE / 4);
+					parallel.addPoints(phi);
+				}
+				FigureSnapshot exp = serial.getSnapshot();
+				FigureSnapshot act = parallel.getSnapshot();
+				String msg = "radii " + r[0] + "/" + r[1]; //$NON-NLS-1$ //$NON-NLS-2$
+				assertTrue(msg, exp.getPointCount()>3*FigureModel.PARALLEL_CHUNK_SIZE);
+				assertEquals(msg, exp.getStartIndex(), act.getStartIndex());
+				assertEquals(msg, exp.getEndIndex(), act.getEndIndex());
+				assertTrue(msg, -exp.getStartIndex()>3*FigureModel.PARALLEL_CHUNK_SIZE);
+				PointStoreView ev = exp.getPoints();
+				PointStoreView av = act.getPoints();
+				for (int i=exp.getStartIndex(); i<exp.getEndIndex(); i++) {
+					assertEquals(msg + " x at " + i, ev.getX(i), av.getX(i), 1e-3); //$NON-NLS-1$
+					assertEquals(msg + " y at " + i, ev.getY(i), av.getY(i), 1e-3); //$NON-NLS-1$
+				}
+			}
+		} finally {
+			FigureModel.setParallelThreshold(oldThreshold);
+		}
+	}
+
+	/**
+	 * @param snap
+	 * @param last	The snapshot read before or null.
+	 * @return	Returns a description of the failure or null.
+	 */
+	static String checkSnapshot(FigureSnapshot snap, FigureSnapshot last) {
+		PointStoreView pv = snap.getPoints();
+		int start = snap.getStartIndex();
+		int end = snap.getEndIndex();
+		for (int i=start; i<end; i++) {
+			double r = Math.hypot(pv.getX(i), pv.getY(i));
+			if (r<R_MIN || r>R_MAX) {
+				return "point " + i + " of " + start + ".." + end +  //$NON-NLS-1$ //$NON-NLS-2$
+					" is off the figure: r=" + r; //$NON-NLS-1$
+			}
+			if (i>start) {
+				double d = Math.hypot(
+						pv.getX(i) - pv.getX(i - 1), pv.getY(i) - pv.getY(i - 1));
+				if (d>MAX_DISTANCE) {
+					return "gap at point " + i + ": " + d; //$NON-NLS-1$ //$NON-NLS-2$
+				}
+			}
+		}
+		PointRange range = new PointRange();
+		snap.getRange(start, end - start, range);
+		if (range.getPointCount()!=end - start) {
+			return "range has " + range.getPointCount() + " points"; //$NON-NLS-1$ //$NON-NLS-2$
+		}
+		if (last!=null && last.getGeneration()==snap.getGeneration()) {
+			int lastStart = last.getStartIndex();
+			int lastEnd = last.getEndIndex();
+			if (start>lastStart || end<lastEnd) {
+				return "range shrinks within a generation"; //$NON-NLS-1$
+			}
+			PointStoreView lv = last.getPoints();
+			for (int i=lastStart; i<lastEnd; i++) {
+				if (lv.getX(i)!=pv.getX(i) || lv.getY(i)!=pv.getY(i)) {
+					return "point " + i + " has changed"; //$NON-NLS-1$ //$NON-NLS-2$
+				}
+			}
+		}
+		return null;
+	}
+}
@@ -28,7 +28,11 @@
  */
 package de.admadic.spiromat.model;
 
+import static org.junit.Assert.*;
+
 import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
 
 import org.apache.commons.lang.SerializationUtils;
 import org.junit.After;
@@ -37,6 +41,8 @@ import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
+import de.admadic.spiromat.shapes.FigureView;
+
 /**
  * @author Rainer Schwarze
  *
@@ -88,4 +94,37 @@ public class FigureSpecTest {
 		fs2 = null;
 	}
 
+	/**
+	 * Test method for {@link FigureSpec#getFigureModel()}. The model is 
+	 * created when a visible view is drawn and compacted while the figure 
+	 * is inactive.
+	 */
+	@Test
+	public void testLazyFigureModel() {
+		FigureSpec fs = new FigureSpec(60, 35, 0.85, Color.RED);
+		fs.initFullInterval();
+		FigureView fv = new FigureView(fs);
+		fv.setIgnoreActiveStatus(true);
+		assertNull(fs.peekFigureModel());
+
+		BufferedImage img = new BufferedImage(100, 100, BufferedImage.TYPE_INT_RGB);
+		Graphics2D g = img.createGraphics();
+		fv.setVisible(false);
+		fv.drawStayingParts(g);
+		assertNull(fs.peekFigureModel());
+
+		fv.setVisible(true);
+		fv.drawStayingParts(g);
+		FigureModel fm = fs.peekFigureModel();
+		assertNotNull(fm);
+		assertTrue(fm.isCompact());
+		assertTrue(fm.getSnapshot().getPointCount()>0);
+
+		fs.setActive(true);
+		assertSame(fm, fs.getFigureModel());
+		assertFalse(fm.isCompact());
+		fs.setActive(false);
+		assertTrue(fm.isCompact());
+		g.dispose();
+	}
 }
@@ -0,0 +1,162 @@
+/**
+ *
+ * #license-begin#
+ * MIT License
+ *
+ * Copyright (c) 2005 - 2022 admaDIC GbR - http://www.admadic.de/
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * #license-end#
+ *
+ * $Id$ 
+ */
+package de.admadic.spiromat.model;
+
+import static org.junit.Assert.*;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author Rainer Schwarze
+ *
+ */
+public class GeometryCacheTest {
+	private long savedBudget;
+
+	/**
+	 * Starts with an empty cache.
+	 */
+	@Before
+	public void setUp() {
+		savedBudget = GeometryCache.getBudget();
+		GeometryCache.clear();
+		GeometryCache.resetStatistics();
+	}
+
+	/**
+	 * Restores the budget.
+	 */
+	@After
+	public void tearDown() {
+		GeometryCache.setBudget(savedBudget);
+		GeometryCache.clear();
+	}
+
+	/**
+	 * Test method for {@link GeometryCache#put}. The least recently used 
+	 * entries are dropped when the budget is exceeded.
+	 */
+	@Test
+	public void testEviction() {
+		GeometryCache.setBudget(3 * 800);
+		GeometryCache.Key [] keys = new GeometryCache.Key[4];
+		for (int i=0; i<keys.length; i++) {
+			keys[i] = new GeometryCache.Key(480, 300, 0.8, 0.1, 0.0, i + 1.0);
+			GeometryCache.put(keys[i], new GeometryCache.Entry(new float[200], 0, 1.0));
+			if (i==2) {
+				// keys[0] becomes the most recently used one:
+				assertNotNull(GeometryCache.get(keys[0]));
+			}
+		}
+		assertEquals(3, GeometryCache.getEntryCount());
+		assertEquals(3 * 800, GeometryCache.getByteCount());
+		assertNotNull(GeometryCache.get(keys[0]));
+		assertNull(GeometryCache.get(keys[1]));
+		assertNotNull(GeometryCache.get(
+				new GeometryCache.Key(480, 300, 0.8, 0.1, 0.0, 4.0)));
+		assertEquals(3, GeometryCache.getHitCount());
+		assertEquals(1, GeometryCache.getMissCount());
+
+		GeometryCache.put(keys[1], new GeometryCache.Entry(new float[2000], 0, 1.0));
+		assertNull(GeometryCache.get(keys[1]));
+	}
+
+	/**
+	 * Test method for {@link FigureModel#addInterval(double, double)}. The 
+	 * second model must take the points from the cache.
+	 */
+	@Test
+	public void testFigureModel() {
+		FigureModel fm1 = new FigureModel(480, 300, 0.8);
+		fm1.addInterval(-3.0, 17.0);
+		assertEquals(1, GeometryCache.getMissCount());
+		assertEquals(1, GeometryCache.getEntryCount());
+
+		FigureModel fm2 = new FigureModel(480, 300, 0.8);
+		fm2.addInterval(-3.0, 17.0);
+		assertEquals(1, GeometryCache.getHitCount());
+
+		FigureSnapshot s1 = fm1.getSnapshot();
+		FigureSnapshot s2 = fm2.getSnapshot();
+		assertEquals(s1.getStartIndex(), s2.getStartIndex());
+		assertEquals(s1.getEndIndex(), s2.getEndIndex());
+		assertEquals(s1.getPhiMin(), s2.getPhiMin(), 0.0);
+		assertEquals(s1.getPhiMax(), s2.getPhiMax(), 0.0);
+		for (int i=s1.getStartIndex(); i<s1.getEndIndex(); i++) {
+			assertEquals(s1.getPoints().getX(i), s2.getPoints().getX(i), 0.0f);
+			assertEquals(s1.getPoints().getY(i), s2.getPoints().getY(i), 0.0f);
+		}
+
+		// the models are extended independently:
+		fm2.addPoints(20.0);
+		assertEquals(s1.getEndIndex(), fm1.getSnapshot().getEndIndex());
+		assertTrue(fm2.getSnapshot().getEndIndex()>s1.getEndIndex());
+
+		FigureModel fm3 = new FigureModel(480, 300, 0.7);
+		fm3.addInterval(-3.0, 17.0);
+		assertEquals(1, GeometryCache.getHitCount());
+		assertEquals(2, GeometryCache.getMissCount());
+	}
+
+	/**
+	 * Test method for {@link FigureModel#addInterval(double, double)} with
+	 * radii of the same ratio. The points must be scaled from the cached 
+	 * figure.
+	 */
+	@Test
+	public void testScaledFigureModel() {
+		assertEquals(60.0, GeometryCache.calculateScale(480, 300), 0.0);
+		assertEquals(1.0, GeometryCache.calculateScale(480.5, 300), 0.0);
+
+		FigureModel fm1 = new FigureModel(480, 300, 0.8);
+		fm1.addInterval(0.0, Math.PI * 10);
+		assertEquals(0, GeometryCache.getHitCount());
+
+		FigureModel fm2 = new FigureModel(240, 150, 0.8);
+		fm2.addInterval(0.0, Math.PI * 10);
+		assertEquals(1, GeometryCache.getHitCount());
+
+		// the reference calculated without the cache:
+		GeometryCache.clear();
+		FigureModel fm3 = new FigureModel(240, 150, 0.8);
+		fm3.addInterval(0.0, Math.PI * 10);
+		assertEquals(1, GeometryCache.getHitCount());
+
+		FigureSnapshot s2 = fm2.getSnapshot();
+		FigureSnapshot s3 = fm3.getSnapshot();
+		assertEquals(s3.getStartIndex(), s2.getStartIndex());
+		assertEquals(s3.getEndIndex(), s2.getEndIndex());
+		for (int i=s3.getStartIndex(); i<s3.getEndIndex(); i++) {
+			assertEquals(s3.getPoints().getX(i), s2.getPoints().getX(i), 1e-3f);
+			assertEquals(s3.getPoints().getY(i), s2.getPoints().getY(i), 1e-3f);
+		}
+	}
+}
@@ -0,0 +1,224 @@
+/**
+ *
+ * #license-begin#
+ * MIT License
+ *
+ * Copyright (c) 2005 - 2022 admaDIC GbR - http://www.admadic.de/
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * #license-end#
+ *
+ * $Id$ 
+ */
+package de.admadic.spiromat.model;
+
+import static org.junit.Assert.*;
+
+import java.awt.geom.PathIterator;
+import java.awt.geom.Rectangle2D;
+import java.nio.FloatBuffer;
+
+import org.junit.Test;
+
+/**
+ * @author Rainer Schwarze
+ *
+ */
+public class PointStoreTest {
+
+	/**
+	 * Test method for {@link PointStore#ensureRange(int, int)}. Points are
+	 * added alternately at both ends and must keep their values.
+	 */
+	@Test
+	public void testGrowBothEnds() {
+		PointStore ps = new PointStore();
+		int start = 0;
+		int end = 0;
+		for (int round=0; round<50; round++) {
+			int count = 37 * round + 1;
+			ps.ensureRange(end, end + count);
+			for (int i=0; i<count; i++, end++) {
+				ps.setPoint(end, end, -end);
+			}
+			ps.ensureRange(start - count, start);
+			for (int i=0; i<count; i++) {
+				start--;
+				ps.setPoint(start, start, -start);
+			}
+		}
+		for (int i=start; i<end; i++) {
+			assertEquals("x at " + i, i, ps.getX(i), 0.0f);
+			assertEquals("y at " + i, -i, ps.getY(i), 0.0f);
+		}
+		int blocks = (end - start + PointStore.BLOCK_SIZE - 1) / PointStore.BLOCK_SIZE;
+		assertTrue("blocks", ps.getBlockCount() <= blocks + 1);
+	}
+
+	/**
+	 * Test method for {@link PointStore#visitSegments}. The segments must 
+	 * follow each other across the block boundaries.
+	 */
+	@Test
+	public void testVisitSegments() {
+		PointStore ps = new PointStore();
+		final int from = -PointStore.BLOCK_SIZE - 10;
+		final int to = 2*PointStore.BLOCK_SIZE + 10;
+		ps.ensureRange(from, to);
+		for (int i=from; i<to; i++) {
+			ps.setPoint(i, i, 0.0f);
+		}
+		final int [] next = new int[] { from + 5 };
+		ps.visitSegments(from + 5, to - 5, new IPointSegmentVisitor() {
+			public void visitSegment(FloatBuffer block, int offset, int count) {
+				assertTrue("count", count>0 && count<=PointStore.BLOCK_SIZE);
+				for (int i=0; i<count; i++) {
+					assertEquals(next[0], block.get(offset + 2*i), 0.0f);
+					next[0]++;
+				}
+			}
+		});
+		assertEquals("end", to - 5, next[0]);
+
+		int [] xs = ps.copyCoordinates(from, to - from, 0);
+		for (int i=0; i<xs.length; i++) {
+			assertEquals(from + i, xs[i]);
+		}
+	}
+
+	/**
+	 * Test method for {@link PointStore#getRange}. The range must iterate
+	 * as one polyline across the block boundaries.
+	 */
+	@Test
+	public void testGetRange() {
+		PointStore ps = new PointStore();
+		final int from = -PointStore.BLOCK_SIZE / 2;
+		final int to = PointStore.BLOCK_SIZE * 3 / 2;
+		ps.ensureRange(from, to);
+		for (int i=from; i<to; i++) {
+			ps.setPoint(i, i, 2*i);
+		}
+		PointRange range = new PointRange();
+		ps.getRange(from, to - from, range);
+		assertTrue("segments", range.getSegmentCount()>=2);
+		assertEquals("points", to - from, range.getPointCount());
+
+		float [] coords = new float[6];
+		int i = from;
+		for (PathIterator it = range.getPathIterator(null); !it.isDone(); it.next()) {
+			int type = it.currentSegment(coords);
+			assertEquals(i==from ? PathIterator.SEG_MOVETO : PathIterator.SEG_LINETO, type);
+			assertEquals(i, coords[0], 0.0f);
+			assertEquals(2*i, coords[1], 0.0f);
+			i++;
+		}
+		assertEquals("end", to, i);
+		assertEquals(new Rectangle2D.Float(from, 2*from, to - 1 - from, 2*(to - 1 - from)), 
+				range.getBounds2D());
+
+		range.clear();
+		assertTrue(range.getPathIterator(null).isDone());
+	}
+
+	/**
+	 * Test method for {@link PointStore#setOffHeapBudget(long)}. Blocks
+	 * beyond the budget are on-heap. The budget is returned when the 
+	 * blocks are unreachable, not when the store is released while a view
+	 * still refers to them.
+	 * 
+	 * @throws InterruptedException 
+	 */
+	@Test
+	public void testOffHeapBudget() throws InterruptedException {
+		long oldBudget = PointStore.getOffHeapBudget();
+		long oldUsed = PointStore.getOffHeapUsed();
+		try {
+			PointStore.setOffHeapBudget(oldUsed + 3*PointStore.BLOCK_BYTES);
+			PointStore ps = new PointStore();
+			int count = 5*PointStore.BLOCK_SIZE;
+			ps.ensureRange(0, count);
+			for (int i=0; i<count; i++) {
+				ps.setPoint(i, i, -i);
+			}
+			assertEquals("blocks", 5, ps.getBlockCount());
+			assertEquals("off-heap blocks", 3, ps.getOffHeapBlockCount());
+			assertEquals("used", oldUsed + 3*PointStore.BLOCK_BYTES, PointStore.getOffHeapUsed());
+			for (int i=0; i<count; i++) {
+				assertEquals(i, ps.getX(i), 0.0f);
+				assertEquals(-i, ps.getY(i), 0.0f);
+			}
+
+			PointRange range = new PointRange();
+			ps.getRange(0, count, range);
+			ps.release();
+			assertEquals("blocks after release", 0, ps.getBlockCount());
+			assertEquals("off-heap blocks after release", 0, ps.getOffHeapBlockCount());
+			System.gc();
+			Thread.sleep(20);
+			assertEquals("used while viewed", oldUsed + 3*PointStore.BLOCK_BYTES, PointStore.getOffHeapUsed());
+			assertEquals("range", count, range.getPointCount());
+
+			// a new store must not exceed the budget:
+			PointStore ps2 = new PointStore();
+			ps2.ensureRange(0, 1);
+			ps2.setPoint(0, 1, 2);
+			assertEquals("off-heap blocks of new store", 0, ps2.getOffHeapBlockCount());
+
+			range = null;
+			for (int i=0; i<100 && PointStore.getOffHeapUsed()!=oldUsed; i++) {
+				System.gc();
+				Thread.sleep(20);
+			}
+			assertEquals("used after drop", oldUsed, PointStore.getOffHeapUsed());
+		} finally {
+			PointStore.setOffHeapBudget(oldBudget);
+		}
+	}
+
+	/**
+	 * Test method for the off-heap budget of a store which is dropped 
+	 * without {@link PointStore#release()}, like the store of an evicted
+	 * FigureModel.
+	 * 
+	 * @throws InterruptedException 
+	 */
+	@Test
+	public void testOffHeapBudgetOfDroppedStore() throws InterruptedException {
+		long oldBudget = PointStore.getOffHeapBudget();
+		long oldUsed = PointStore.getOffHeapUsed();
+		try {
+			PointStore.setOffHeapBudget(oldUsed + 2*PointStore.BLOCK_BYTES);
+			PointStore ps = new PointStore();
+			ps.ensureRange(0, 2*PointStore.BLOCK_SIZE);
+			ps.setPoint(0, 1, 2);
+			ps.setPoint(PointStore.BLOCK_SIZE, 3, 4);
+			assertEquals("off-heap blocks", 2, ps.getOffHeapBlockCount());
+			ps = null;
+
+			for (int i=0; i<100 && PointStore.getOffHeapUsed()!=oldUsed; i++) {
+				System.gc();
+				Thread.sleep(20);
+			}
+			assertEquals("used after drop", oldUsed, PointStore.getOffHeapUsed());
+		} finally {
+			PointStore.setOffHeapBudget(oldBudget);
+		}
+	}
+}
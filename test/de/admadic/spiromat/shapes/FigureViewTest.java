@@ -0,0 +1,183 @@
+/**
+ *
+ * #license-begin#
+ * MIT License
+ *
+ * Copyright (c) 2005 - 2022 admaDIC GbR - http://www.admadic.de/
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * #license-end#
+ *
+ * $Id$ 
+ */
+package de.admadic.spiromat.shapes;
+
+import static org.junit.Assert.*;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+
+import org.junit.Test;
+
+import de.admadic.spiromat.Globals;
+import de.admadic.spiromat.model.FigureSpec;
+
+/**
+ * @author Rainer Schwarze
+ *
+ */
+public class FigureViewTest {
+
+	/**
+	 * Test method for the full redraw of 
+	 * {@link FigureView#drawStayingParts(Graphics2D)} with the kept outline.
+	 * The figure grows between the redraws and the stroke changes. The 
+	 * results must match the redraws of a new FigureView. The outline is 
+	 * only used without stroke normalization.
+	 */
+	@Test
+	public void testRedrawOutline() {
+		FigureSpec fs = new FigureSpec(80, 35, 0.85, Color.BLUE);
+		fs.setActive(true);
+		FigureView fv = new FigureView(fs);
+
+		for (int step=1; step<=4; step++) {
+			if (step==3) {
+				// only the stroke changes, the thinner one is used:
+				fv.setIgnoreActiveStatus(true);
+			} else {
+				fs.setCursorAngle(step * 2.1);
+			}
+			// the same state is drawn twice:
+			for (int i=0; i<2; i++) {
+				FigureView fresh = new FigureView(fs);
+				fresh.setIgnoreActiveStatus(fv.isIgnoreActiveStatus());
+				fv.drawReset();
+				assertSameImage(
+						"step " + step + "/" + i,  //$NON-NLS-1$ //$NON-NLS-2$
+						draw(fresh), draw(fv));
+			}
+		}
+	}
+
+	/**
+	 * Test method for the kept path of 
+	 * {@link FigureView#drawStayingParts(Graphics2D)}. Only the active 
+	 * figure keeps it, a deactivated figure drops it on the next drawing.
+	 */
+	@Test
+	public void testOutlineOnlyForActive() {
+		FigureSpec fs = new FigureSpec(80, 35, 0.85, Color.BLUE);
+		fs.setActive(true);
+		fs.setCursorAngle(4.0);
+		FigureView fv = new FigureView(fs);
+		draw(fv);
+		assertTrue("active", fv.isOutlineCached()); //$NON-NLS-1$
+
+		// an incremental drawing:
+		fs.setActive(false);
+		fs.setCursorAngle(5.0);
+		draw(fv);
+		assertFalse("deactivated", fv.isOutlineCached()); //$NON-NLS-1$
+
+		fv.drawReset();
+		draw(fv);
+		assertFalse("inactive", fv.isOutlineCached()); //$NON-NLS-1$
+	}
+
+	/**
+	 * Test method for the incremental drawing of 
+	 * {@link FigureView#drawStayingParts(Graphics2D)}. The figure is drawn
+	 * in small steps of the cursor angle (in both directions) and must 
+	 * cover everything a full drawing covers.
+	 */
+	@Test
+	public void testIncrementalDrawing() {
+		FigureSpec fs = new FigureSpec(80, 35, 0.85, Color.BLUE);
+		FigureView fv = new FigureView(fs);
+		fv.setIgnoreActiveStatus(true);
+		BufferedImage img = new BufferedImage(
+				Globals.MODEL_WIDTH, Globals.MODEL_HEIGHT, 
+				BufferedImage.TYPE_INT_RGB);
+		Graphics2D g = img.createGraphics();
+		try {
+			// like in SpiromatCanvas:
+			g.setRenderingHint(
+					RenderingHints.KEY_STROKE_CONTROL, 
+					RenderingHints.VALUE_STROKE_PURE);
+			g.translate(Globals.MODEL_WIDTH/2, Globals.MODEL_HEIGHT/2);
+			for (int step=0; step<=200; step++) {
+				fs.setCursorAngle(step * 0.05);
+				fv.drawStayingParts(g);
+			}
+			for (int step=1; step<=100; step++) {
+				fs.setCursorAngle(-step * 0.05);
+				fv.drawStayingParts(g);
+			}
+		} finally {
+			g.dispose();
+		}
+
+		FigureView full = new FigureView(fs);
+		full.setIgnoreActiveStatus(true);
+		BufferedImage exp = draw(full);
+		int missing = 0;
+		for (int y=0; y<exp.getHeight(); y++) {
+			for (int x=0; x<exp.getWidth(); x++) {
+				if ((exp.getRGB(x, y) & 0xffffff)!=0 && 
+						(img.getRGB(x, y) & 0xffffff)==0) {
+					missing++;
+				}
+			}
+		}
+		assertEquals("missing pixels", 0, missing); //$NON-NLS-1$
+	}
+
+	private static BufferedImage draw(FigureView fv) {
+		BufferedImage img = new BufferedImage(
+				Globals.MODEL_WIDTH, Globals.MODEL_HEIGHT, 
+				BufferedImage.TYPE_INT_RGB);
+		Graphics2D g = img.createGraphics();
+		try {
+			g.setRenderingHint(
+					RenderingHints.KEY_STROKE_CONTROL, 
+					RenderingHints.VALUE_STROKE_PURE);
+			g.translate(Globals.MODEL_WIDTH/2, Globals.MODEL_HEIGHT/2);
+			fv.drawStayingParts(g);
+		} finally {
+			g.dispose();
+		}
+		return img;
+	}
+
+	private static void assertSameImage(String msg, BufferedImage exp, BufferedImage act) {
+		boolean drawn = false;
+		for (int y=0; y<exp.getHeight(); y++) {
+			for (int x=0; x<exp.getWidth(); x++) {
+				if (exp.getRGB(x, y)!=act.getRGB(x, y)) {
+					fail(msg + ": pixel differs at " + x + "," + y); //$NON-NLS-1$ //$NON-NLS-2$
+				}
+				drawn |= (act.getRGB(x, y) & 0xffffff)!=0;
+			}
+		}
+		assertTrue(msg + ": nothing drawn", drawn); //$NON-NLS-1$
+	}
+}
@@ -0,0 +1,152 @@
+/**
+ *
+ * #license-begin#
+ * MIT License
+ *
+ * Copyright (c) 2005 - 2022 admaDIC GbR - http://www.admadic.de/
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * #license-end#
+ *
+ * $Id$ 
+ */
+package de.admadic.spiromat.ui;
+
+import static org.junit.Assert.*;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * @author Rainer Schwarze
+ *
+ */
+public class AcceleratedFrameTest {
+
+	/**
+	 * Test method for {@link AcceleratedFrame#draw}. Without requiring 
+	 * acceleration the VolatileImage is used in software mode too, and it 
+	 * must follow the changes of the frame.
+	 */
+	@Test
+	public void testDrawSoftware() {
+		BufferedImage frame = new BufferedImage(64, 48, BufferedImage.TYPE_INT_RGB);
+		BufferedImage target = new BufferedImage(100, 100, BufferedImage.TYPE_INT_RGB);
+		fill(frame, Color.RED);
+
+		AcceleratedFrame af = new AcceleratedFrame(false);
+		Graphics2D g = target.createGraphics();
+		GraphicsConfiguration gc = g.getDeviceConfiguration();
+		assertTrue(af.draw(g, gc, frame, 10, 20));
+		assertTrue(af.isActive());
+		assertEquals(Color.RED.getRGB(), target.getRGB(10, 20));
+		assertEquals(Color.RED.getRGB(), target.getRGB(73, 67));
+		assertEquals(Color.BLACK.getRGB(), target.getRGB(74, 68));
+
+		// without invalidation the copy is painted:
+		fill(frame, Color.BLUE);
+		assertTrue(af.draw(g, gc, frame, 10, 20));
+		assertEquals(Color.RED.getRGB(), target.getRGB(40, 40));
+
+		af.invalidate();
+		assertTrue(af.draw(g, gc, frame, 10, 20));
+		assertEquals(Color.BLUE.getRGB(), target.getRGB(40, 40));
+
+		af.flush();
+		assertFalse(af.isActive());
+		assertFalse(af.draw(g, null, frame, 10, 20));
+		g.dispose();
+	}
+
+	/**
+	 * Test method for {@link AcceleratedFrame#invalidate(List)}. Only the 
+	 * reported regions are uploaded, unknown regions upload the frame.
+	 */
+	@Test
+	public void testDrawRegions() {
+		BufferedImage frame = new BufferedImage(64, 48, BufferedImage.TYPE_INT_RGB);
+		BufferedImage target = new BufferedImage(100, 100, BufferedImage.TYPE_INT_RGB);
+		fill(frame, Color.RED);
+
+		AcceleratedFrame af = new AcceleratedFrame(false);
+		Graphics2D g = target.createGraphics();
+		GraphicsConfiguration gc = g.getDeviceConfiguration();
+		// regions reported before the first upload do not matter:
+		af.invalidate(new ArrayList<Rectangle>());
+		assertTrue(af.draw(g, gc, frame, 10, 20));
+		assertEquals(Color.RED.getRGB(), target.getRGB(40, 40));
+
+		fill(frame, Color.BLUE);
+		List<Rectangle> regions = new ArrayList<Rectangle>();
+		regions.add(new Rectangle(0, 0, 8, 8));
+		regions.add(new Rectangle(60, 40, 10, 10));	// partly outside
+		af.invalidate(regions);
+		regions.clear();	// the frame keeps its own copy
+		assertTrue(af.draw(g, gc, frame, 10, 20));
+		assertEquals(Color.BLUE.getRGB(), target.getRGB(10, 20));
+		assertEquals(Color.BLUE.getRGB(), target.getRGB(17, 27));
+		assertEquals(Color.BLUE.getRGB(), target.getRGB(73, 67));
+		assertEquals(Color.RED.getRGB(), target.getRGB(18, 28));
+		assertEquals(Color.RED.getRGB(), target.getRGB(40, 40));
+
+		af.invalidate(null);
+		assertTrue(af.draw(g, gc, frame, 10, 20));
+		assertEquals(Color.BLUE.getRGB(), target.getRGB(40, 40));
+
+		// too many regions upload the whole frame:
+		fill(frame, Color.GREEN);
+		for (int i=0; i<=AcceleratedFrame.MAX_DIRTY_REGIONS; i++) {
+			regions.add(new Rectangle(0, 0, 1, 1));
+		}
+		af.invalidate(regions);
+		assertTrue(af.draw(g, gc, frame, 10, 20));
+		assertEquals(Color.GREEN.getRGB(), target.getRGB(40, 40));
+		g.dispose();
+	}
+
+	/**
+	 * Test method for {@link AcceleratedFrame#draw}. Without a graphics 
+	 * device which provides acceleration (like with images), the caller 
+	 * has to draw the frame.
+	 */
+	@Test
+	public void testFallback() {
+		BufferedImage frame = new BufferedImage(64, 48, BufferedImage.TYPE_INT_RGB);
+		BufferedImage target = new BufferedImage(100, 100, BufferedImage.TYPE_INT_RGB);
+		AcceleratedFrame af = new AcceleratedFrame(true);
+		Graphics2D g = target.createGraphics();
+		assertFalse(af.draw(g, g.getDeviceConfiguration(), frame, 0, 0));
+		assertFalse(af.isActive());
+		g.dispose();
+	}
+
+	private static void fill(BufferedImage img, Color c) {
+		Graphics2D g = img.createGraphics();
+		g.setColor(c);
+		g.fillRect(0, 0, img.getWidth(), img.getHeight());
+		g.dispose();
+	}
+}
@@ -0,0 +1,162 @@
+/**
+ *
+ * #license-begin#
+ * MIT License
+ *
+ * Copyright (c) 2005 - 2022 admaDIC GbR - http://www.admadic.de/
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ * #license-end#
+ *
+ * $Id$ 
+ */
+package de.admadic.spiromat.ui;
+
+import static org.junit.Assert.*;
+
+import java.awt.Color;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Test;
+
+import de.admadic.spiromat.Globals;
+import de.admadic.spiromat.math.SpiroMath;
+import de.admadic.spiromat.model.FigureSpec;
+import de.admadic.spiromat.model.InnerGearSpec;
+import de.admadic.spiromat.model.OuterGearSpec;
+import de.admadic.spiromat.shapes.Drawable;
+import de.admadic.spiromat.shapes.FigureView;
+import de.admadic.spiromat.shapes.InnerGearView;
+import de.admadic.spiromat.shapes.OuterGearView;
+
+/**
+ * @author Rainer Schwarze
+ *
+ */
+public class SpiromatCanvasTest {
+
+	/**
+	 * Restores the default.
+	 */
+	@After
+	public void tearDown() {
+		SpiromatCanvas.setDirtyRegionTracking(true);
+	}
+
+	/**
+	 * Test method for the dirty region tracking of 
+	 * {@link SpiromatCanvas#render(List)}. A figure is drawn step by step 
+	 * with moving gears, once with updating only the changed regions and 
+	 * once with updating the complete back buffer. The results must match.
+	 */
+	@Test
+	public void testDirtyRegions() {
+		do_testDirtyRegions(null, 0, 0);
+	}
+
+	/**
+	 * Test method for the dirty region tracking of 
+	 * {@link SpiromatCanvas#render(List)} with back buffers in device 
+	 * resolution (scaled and flipped like the canvas transformation).
+	 */
+	@Test
+	public void testDirtyRegionsDeviceResolution() {
+		AffineTransform t = AffineTransform.getTranslateInstance(350, 350);
+		t.scale(0.7, -0.7);
+		do_testDirtyRegions(t, 700, 700);
+	}
+
+	/**
+	 * @param bufferTransform	The back buffer geometry or null for the 
+	 * 							default one.
+	 * @param width
+	 * @param height
+	 */
+	private void do_testDirtyRegions(
+			AffineTransform bufferTransform, int width, int height) {
+		FigureSpec fs = new FigureSpec(80, 50, 0.8, Color.BLUE);
+		fs.setActive(true);
+		OuterGearSpec ogs = new OuterGearSpec(80, Color.GRAY);
+		InnerGearSpec igs = new InnerGearSpec(0.8, 50, Color.GREEN);
+		SpiroMath sm = new SpiroMath(
+				80 * Globals.MAX_RADIUS / 100, 50 * Globals.MAX_RADIUS / 100, 0.8);
+
+		SpiromatCanvas [] canvases = new SpiromatCanvas[2];
+		List<List<Drawable>> drawables = new ArrayList<List<Drawable>>();
+		List<InnerGearView> innerGears = new ArrayList<InnerGearView>();
+		for (int c=0; c<canvases.length; c++) {
+			canvases[c] = new SpiromatCanvas();
+			if (bufferTransform!=null) {
+				canvases[c].setBufferGeometry(bufferTransform, width, height, true);
+			}
+			canvases[c].prepareRender();
+			FigureView fv = new FigureView(fs);
+			fv.setIgnoreActiveStatus(true);
+			InnerGearView igv = new InnerGearView(igs);
+			List<Drawable> list = new ArrayList<Drawable>();
+			list.add(fv);
+			list.add(new OuterGearView(ogs));
+			list.add(igv);
+			drawables.add(list);
+			innerGears.add(igv);
+		}
+
+		for (int step=0; step<120; step++) {
+			double phi = step * 0.13;
+			if (step==30) {
+				// the resting outer gear changes its appearance:
+				ogs.setColor(Color.ORANGE);
+			}
+			fs.setCursorAngle(phi);
+			sm.calculate(phi);
+			for (int c=0; c<canvases.length; c++) {
+				innerGears.get(c).setState(
+						sm.getSmallGearDirection(), 
+						sm.getSmallGearCenterX(), 
+						sm.getSmallGearCenterY());
+				if (step==60) {
+					// the gear disappears:
+					innerGears.get(c).setVisible(false);
+				}
+				SpiromatCanvas.setDirtyRegionTracking(c==0);
+				canvases[c].render(drawables.get(c));
+			}
+			if (step % 10 == 9 || step==30 || step==60) {
+				assertSameImage(
+						"step " + step,  //$NON-NLS-1$
+						canvases[1].getVolatileBackBuffer(), 
+						canvases[0].getVolatileBackBuffer());
+			}
+		}
+	}
+
+	private static void assertSameImage(String msg, BufferedImage exp, BufferedImage act) {
+		for (int y=0; y<exp.getHeight(); y++) {
+			for (int x=0; x<exp.getWidth(); x++) {
+				if (exp.getRGB(x, y)!=act.getRGB(x, y)) {
+					fail(msg + ": pixel differs at " + x + "," + y); //$NON-NLS-1$ //$NON-NLS-2$
+				}
+			}
+		}
+	}
+}